@@ -3,8 +3,11 @@ package examples;
 import models.DARMSModel;
 import models.DARMSOutput;
 import solvers.DARMSMarginalSolver;
+import utilities.DARMSExporter;
+import utilities.DARMSFlightAggregator;
 import utilities.DARMSHelper;
 import utilities.DARMSModelBuilder;
+import utilities.DARMSOperationPresolver;
 
 public class ExampleDARMS{
 	public static void main(String[] args){
@@ -14,29 +17,63 @@ public class ExampleDARMS{
 //			double max = 30;
 				
 			// double[] fr = new double[intervals + 1];
+			
+			String cplexFile = "CplexConfig"; // args[0];
+			String inputFile = "InputDARMS.30.6.true.txt"; // args[1];
+			String outputFile = "OutputDARMS.txt";
+			boolean zeroSum = true;
+			boolean decomposed = false;
+			boolean verbose = true;
+			boolean aggregateFlights = false;
+			boolean presolveOperations = false;
+			
+			DARMSHelper.loadLibrariesCplex(cplexFile);
+			
+			if(verbose){
+				System.out.println("Building DARMS model... Started");
+			}
+			
+			DARMSModel baseModel = DARMSModelBuilder.buildModel(inputFile, verbose, 0);
+			
+			if(verbose){
+				System.out.println("Building DARMS model... Completed");
+			}
 	
 			for( int i = 0; i < intervals + 1; ++i ){
 				// fr[i] = min + (max - min)*i / intervals;
-	
-				String cplexFile = "CplexConfig"; // args[0];
-				String inputFile = "InputDARMS.30.6.true.txt"; // args[1];
-				String outputFile = "OutputDARMS.txt";
-				boolean zeroSum = true;
-				boolean decomposed = false;
-				boolean verbose = true;
 				
 				long start = System.currentTimeMillis();
 				
-				DARMSHelper.loadLibrariesCplex(cplexFile);
+				DARMSModel model = baseModel.withResourceFines(i);
 				
-				if(verbose){
-					System.out.println("Building DARMS model... Started");
+				if(presolveOperations && zeroSum){
+					DARMSOperationPresolver presolver = new DARMSOperationPresolver(model);
+					
+					model = presolver.presolve(zeroSum);
+					
+					if(verbose){
+						System.out.println(presolver.getReport());
+					}
 				}
 				
-				DARMSModel model = DARMSModelBuilder.buildModel(inputFile, verbose, i);
+				// Counted before aggregation so the summary reports the original flights
+				int numFlights = model.getFlights().size();
 				
-				if(verbose){
-					System.out.println("Building DARMS model... Completed");
+				DARMSFlightAggregator aggregator = null;
+				
+				if(aggregateFlights){
+					aggregator = new DARMSFlightAggregator(model);
+					
+					if(aggregator.applicable()){
+						model = aggregator.aggregate();
+						
+						if(verbose){
+							System.out.println(aggregator.getReport(zeroSum));
+						}
+					}
+					else{
+						aggregator = null;
+					}
 				}
 				
 				DARMSOutput output = new DARMSOutput(outputFile);
@@ -49,8 +86,8 @@ public class ExampleDARMS{
 				
 				solver.solve();
 				
-				solver.writeProblem("DARMS.lp");
-				solver.writeSolution("DARMS.sol");
+				solver.exportProblem("DARMS.lp", DARMSExporter.Level.ALL);
+				solver.exportSolution("DARMS.sol", DARMSExporter.Level.ALL);
 				
 				if(verbose){
 					System.out.println("Solving DARMS model... Completed");
@@ -59,13 +96,26 @@ public class ExampleDARMS{
 					String fname = aa[0] + i + ".csv";
 					
 					System.out.println("Saving output file: " + fname);
-					solver.writeDefenderScreeningStrategy(fname);
+					
+					// Strategies of aggregated flights are written per original flight
+					if(aggregator != null){
+						aggregator.writeDefenderScreeningStrategy(fname, solver.getDefenderScreeningStrategy());
+					}
+					else{
+						solver.writeDefenderScreeningStrategy(fname);
+					}
 					
 					aa = output.adversaryStrategiesFile().split(".csv");
 					fname = aa[0] + i + ".csv";
 					
 					System.out.println("Saving output file: " + fname);
-					solver.writeAdversaryStrategies(fname);
+					
+					if(aggregator != null){
+						aggregator.writeAdversaryStrategies(fname, solver.getAdversaryStrategies());
+					}
+					else{
+						solver.writeAdversaryStrategies(fname);
+					}
 					
 					aa = output.adversaryPayoffsFile().split(".csv");
 					fname = aa[0] + i + ".csv";
@@ -83,13 +133,25 @@ public class ExampleDARMS{
 					fname = aa[0] + i + ".csv";				
 					
 					System.out.println("Saving output file: " + fname);
-					solver.writeRiskCategoryCoverage(fname);
+					
+					if(aggregator != null){
+						aggregator.writeRiskCategoryCoverage(fname, solver.calculateRiskCategoryCoverage());
+					}
+					else{
+						solver.writeRiskCategoryCoverage(fname);
+					}
 					
 					aa = output.passengerDistributionFile().split(".csv");
 					fname = aa[0] + i + ".csv";					
 					
 					System.out.println("Saving output file: " + fname);
-					solver.writeTemporalPassengerDistribution(fname);
+					
+					if(aggregator != null){
+						aggregator.writeTemporalPassengerDistribution(fname);
+					}
+					else{
+						solver.writeTemporalPassengerDistribution(fname);
+					}
 					
 					aa = output.resourceFinesFile().split(".csv");
 					fname = aa[0] + i + ".csv";
@@ -97,7 +159,6 @@ public class ExampleDARMS{
 				}
 				
 				boolean flightByFlight = model.flightByFlight();
-				int numFlights = model.getFlights().size();
 				int numCategories = model.getAdversaryDistribution().keySet().size();
 				int numTimeWindows = model.getTimeWindows().size();
 				double defenderPayoff = solver.getDefenderPayoff();
@@ -105,6 +166,8 @@ public class ExampleDARMS{
 							
 				System.out.println(inputFile + " " + flightByFlight + " " + zeroSum + " " + decomposed + " " + numFlights + " " +  numCategories+ " " + numTimeWindows + " " + defenderPayoff + " " + runtime);
 			}
+			
+			DARMSExporter.getDefault().flush();
 		}
 		catch(Exception e){
 			e.printStackTrace();
@@ -0,0 +1,127 @@
+package examples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import models.DARMSModel;
+import models.Flight;
+import models.PassengerDistribution;
+import models.PureStrategy;
+import models.RiskCategory;
+import solvers.DARMSMarginalSolver;
+import utilities.DARMSHelper;
+import utilities.DARMSModelBuilder;
+import utilities.DARMSPureStrategySampler;
+import utilities.DARMSScreeningDispenser;
+
+public class ExampleDARMSDispenser{
+	private static class Arrival{
+		private int t;
+		private Flight f;
+		private RiskCategory c;
+		
+		private Arrival(int t, Flight f, RiskCategory c){
+			this.t = t;
+			this.f = f;
+			this.c = c;
+		}
+	}
+	
+	public static void main(String[] args){
+		try{
+			String cplexFile = args[0];
+			String inputFile = args[1];
+			int maxLanes = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+			int repetitions = (args.length > 3) ? Integer.parseInt(args[3]) : 100;
+			
+			DARMSHelper.loadLibrariesCplex(cplexFile);
+			
+			DARMSModel model = DARMSModelBuilder.buildModel(inputFile, false);
+			
+			DARMSMarginalSolver solver = new DARMSMarginalSolver(model, true, false, model.flightByFlight(), false);
+			
+			solver.solve();
+			
+			PureStrategy p = new DARMSPureStrategySampler(model, solver).samplePureStrategy();
+			
+			PassengerDistribution passengerDistribution = model.getPassengerDistribution();
+			
+			final List<Arrival> arrivals = new ArrayList<Arrival>();
+			
+			for(int t : model.getTimeWindows()){
+				for(Flight f : model.getFlights(t)){
+					for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+						for(int i = 0; i < passengerDistribution.get(t, f, c); i++){
+							arrivals.add(new Arrival(t, f, c));
+						}
+					}
+				}
+			}
+			
+			Collections.shuffle(arrivals, new Random(1));
+			
+			// Every lane works through its own share of the arrivals against one shared dispenser
+			for(int lanes = 1; lanes <= maxLanes; lanes *= 2){
+				ExecutorService executor = Executors.newFixedThreadPool(lanes);
+				
+				// Dispensers are built and shuffled up front so only the dispense calls are timed
+				List<DARMSScreeningDispenser> dispensers = new ArrayList<DARMSScreeningDispenser>();
+				
+				for(int r = 0; r < repetitions; r++){
+					dispensers.add(new DARMSScreeningDispenser(model, p, r));
+				}
+				
+				long dispensed = 0;
+				long runtimeNanos = 0;
+				
+				for(int r = 0; r < repetitions; r++){
+					final DARMSScreeningDispenser dispenser = dispensers.get(r);
+					
+					long start = System.nanoTime();
+					
+					List<Future<Void>> futures = new ArrayList<Future<Void>>();
+					
+					for(int lane = 0; lane < lanes; lane++){
+						final int first = lane;
+						final int step = lanes;
+						
+						futures.add(executor.submit(new Callable<Void>(){
+							public Void call(){
+								for(int i = first; i < arrivals.size(); i += step){
+									Arrival a = arrivals.get(i);
+									
+									dispenser.dispense(a.t, a.f, a.c);
+								}
+								
+								return null;
+							}
+						}));
+					}
+					
+					for(Future<Void> future : futures){
+						future.get();
+					}
+					
+					runtimeNanos += System.nanoTime() - start;
+					
+					dispensed += dispenser.getDispensed() + dispenser.getExhausted();
+				}
+				
+				double runtime = runtimeNanos / 1e9;
+				
+				executor.shutdown();
+				
+				System.out.println(inputFile + " " + lanes + " " + dispensed + " " + runtime + " " + (dispensed / runtime));
+			}
+		}
+		catch(Exception e){
+			e.printStackTrace();
+		}
+	}
+}
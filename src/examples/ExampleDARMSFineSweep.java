@@ -0,0 +1,49 @@
+package examples;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import models.DARMSModel;
+import solvers.DARMSMarginalSolver;
+import utilities.DARMSHelper;
+import utilities.DARMSModelBuilder;
+
+public class ExampleDARMSFineSweep{
+	public static void main(String[] args){
+		try{
+			String cplexFile = args[0];
+			String inputFile = args[1];
+			String outputFile = "FineSweep.csv";
+			boolean zeroSum = true;
+			
+			long start = System.currentTimeMillis();
+			
+			DARMSHelper.loadLibrariesCplex(cplexFile);
+			
+			DARMSModel model = DARMSModelBuilder.buildModel(inputFile, false);
+			
+			double fineMin = model.getFineMin();
+			double fineMax = model.getFineMax();
+			int intervals = model.getNumberTests();
+			
+			List<Double> fines = new ArrayList<Double>();
+			
+			for(int i = 0; i < intervals + 1; i++){
+				fines.add((i * (fineMax - fineMin)) / intervals + fineMin);
+			}
+			
+			DARMSMarginalSolver solver = new DARMSMarginalSolver(model, zeroSum, false, model.flightByFlight(), false);
+			
+			solver.solveFineSweep(fines);
+			
+			solver.writeFineSweep(outputFile);
+			
+			double runtime = (System.currentTimeMillis() - start) / 1000.0;
+			
+			System.out.println(inputFile + " " + fines.size() + " " + solver.getFineSweepSolves() + " " + solver.getFineSweepBreakpoints() + " " + runtime);
+		}
+		catch(Exception e){
+			e.printStackTrace();
+		}
+	}
+}
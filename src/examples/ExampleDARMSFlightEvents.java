@@ -0,0 +1,75 @@
+package examples;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import models.DARMSModel;
+import models.Flight;
+import models.FlightEvent;
+import models.PayoffStructure;
+import solvers.DARMSMarginalSolver;
+import utilities.DARMSHelper;
+import utilities.DARMSModelBuilder;
+
+public class ExampleDARMSFlightEvents{
+	public static void main(String[] args){
+		try{
+			String cplexFile = args[0];
+			String inputFile = args[1];
+			int delay = (args.length > 2) ? Integer.parseInt(args[2]) : 30;
+			
+			DARMSHelper.loadLibrariesCplex(cplexFile);
+			
+			DARMSModel model = DARMSModelBuilder.buildModel(inputFile, false);
+			
+			long start = System.currentTimeMillis();
+			
+			DARMSMarginalSolver solver = new DARMSMarginalSolver(model, true, false, model.flightByFlight(), false);
+			
+			solver.solve();
+			
+			double initialRuntime = (System.currentTimeMillis() - start) / 1000.0;
+			
+			System.out.println(inputFile + " " + solver.getDefenderPayoff() + " " + initialRuntime);
+			
+			List<Flight> flights = new ArrayList<Flight>(model.getFlights());
+			PayoffStructure payoffStructure = model.getPayoffStructure();
+			
+			Flight delayedFlight = flights.get(0);
+			Flight cancelledFlight = flights.get(flights.size() - 1);
+			Flight template = flights.get(flights.size() / 2);
+			
+			Flight addedFlight = new Flight(template + "-extra", template.getFlightType(), template.getDepartureTime() + delay, template.getPassengerDistribution());
+			
+			addedFlight.setPayoffs(template.getDefUncovPayoff(), template.getDefCovPayoff(), template.getAttUncovPayoff(), template.getAttCovPayoff());
+			
+			List<FlightEvent> events = new ArrayList<FlightEvent>();
+			
+			events.add(model.delayFlight(delayedFlight, delayedFlight.getDepartureTime() + delay));
+			solver.applyFlightEvent(events.get(events.size() - 1));
+			
+			model = events.get(events.size() - 1).getModel();
+			
+			System.out.println(events.get(events.size() - 1) + " " + solver.getDefenderPayoff() + " " + solver.lastFlightEventPatched() + " " + solver.getLastFlightEventLatency());
+			
+			events.add(model.cancelFlight(cancelledFlight));
+			solver.applyFlightEvent(events.get(events.size() - 1));
+			
+			model = events.get(events.size() - 1).getModel();
+			
+			System.out.println(events.get(events.size() - 1) + " " + solver.getDefenderPayoff() + " " + solver.lastFlightEventPatched() + " " + solver.getLastFlightEventLatency());
+			
+			events.add(model.addFlight(addedFlight, payoffStructure.defCov(template), payoffStructure.defUncov(template), payoffStructure.attCov(template), payoffStructure.attUncov(template)));
+			solver.applyFlightEvent(events.get(events.size() - 1));
+			
+			model = events.get(events.size() - 1).getModel();
+			
+			System.out.println(events.get(events.size() - 1) + " " + solver.getDefenderPayoff() + " " + solver.lastFlightEventPatched() + " " + solver.getLastFlightEventLatency());
+			
+			solver.writeFlightEvents("FlightEvents.csv");
+		}
+		catch(Exception e){
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package examples;
+
+import models.DARMSModel;
+import solvers.DARMSLagrangianSolver;
+import solvers.DARMSMarginalSolver;
+import utilities.DARMSHelper;
+import utilities.DARMSModelBuilder;
+
+public class ExampleDARMSLagrangian{
+	public static void main(String[] args){
+		try{
+			String cplexFile = args[0];
+			String inputFile = args[1];
+			int numThreads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+			int maxIterations = (args.length > 3) ? Integer.parseInt(args[3]) : 200;
+			
+			DARMSHelper.loadLibrariesCplex(cplexFile);
+			
+			DARMSModel model = DARMSModelBuilder.buildModel(inputFile, false);
+			
+			long marginalStart = System.currentTimeMillis();
+			
+			DARMSMarginalSolver marginalSolver = new DARMSMarginalSolver(model, true, false, model.flightByFlight(), false);
+			
+			marginalSolver.solve();
+			
+			double marginalRuntime = (System.currentTimeMillis() - marginalStart) / 1000.0;
+			
+			DARMSLagrangianSolver lagrangianSolver = new DARMSLagrangianSolver(model, numThreads);
+			
+			lagrangianSolver.setMaxIterations(maxIterations);
+			lagrangianSolver.solve();
+			
+			lagrangianSolver.writeConvergence("LagrangianConvergence.csv");
+			
+			System.out.print(inputFile + " " + numThreads + " " + marginalSolver.getDefenderPayoff() + " " + marginalRuntime + " ");
+			System.out.println(lagrangianSolver.getLowerBound() + " " + lagrangianSolver.getUpperBound() + " " + lagrangianSolver.getDualityGap() + " " + lagrangianSolver.getIterations() + " " + lagrangianSolver.getRuntime());
+		}
+		catch(Exception e){
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package examples;
+
+import models.DARMSModel;
+import solvers.DARMSSolver;
+import utilities.DARMSHelper;
+import utilities.DARMSModelBuilder;
+
+public class ExampleDARMSMultipleLPs{
+	public static void main(String[] args){
+		try{
+			String cplexFile = args[0];
+			String inputFile = args[1];
+			int numThreads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+			
+			DARMSHelper.loadLibrariesCplex(cplexFile);
+			
+			DARMSModel model = DARMSModelBuilder.buildModel(inputFile, false);
+			
+			long milpStart = System.currentTimeMillis();
+			
+			DARMSSolver milpSolver = new DARMSSolver(model);
+			
+			milpSolver.solve();
+			
+			double milpRuntime = (System.currentTimeMillis() - milpStart) / 1000.0;
+			
+			DARMSSolver multipleLPsSolver = new DARMSSolver(model);
+			
+			multipleLPsSolver.solveMultipleLPs(numThreads);
+			
+			System.out.print(inputFile + " " + numThreads + " " + milpSolver.getDefenderPayoff() + " " + milpRuntime + " ");
+			System.out.println(multipleLPsSolver.getDefenderPayoff() + " " + multipleLPsSolver.getRuntime() + " " + multipleLPsSolver.getCandidateResponses() + " " + multipleLPsSolver.getPrunedResponses() + " " + multipleLPsSolver.getSolvedLPs());
+		}
+		catch(Exception e){
+			e.printStackTrace();
+		}
+	}
+}
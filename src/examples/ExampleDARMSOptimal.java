@@ -19,6 +19,10 @@ public class ExampleDARMSOptimal{
 			//int warmStartIterations = Integer.parseInt(args[2]);
 			int iterationCutoff = Integer.parseInt(args[2]);
 			boolean betterResponse = Boolean.parseBoolean(args[3]);
+			DARMSOptimalSolver.Stabilization stabilization = (args.length > 4) ? DARMSOptimalSolver.Stabilization.valueOf(args[4].toUpperCase()) : DARMSOptimalSolver.Stabilization.NONE;
+			double stabilizationParameter = (args.length > 5) ? Double.parseDouble(args[5]) : ((stabilization == DARMSOptimalSolver.Stabilization.BOXSTEP) ? 0.25 : 0.5);
+			int columnAgingLimit = (args.length > 6) ? Integer.parseInt(args[6]) : 0;
+			double timeBudget = (args.length > 7) ? Double.parseDouble(args[7]) : 0.0;
 			
 			DARMSHelper.loadLibrariesCplex(cplexFile);
 			
@@ -36,6 +40,10 @@ public class ExampleDARMSOptimal{
 			
 			DARMSOptimalSolver optimalSolver = new DARMSOptimalSolver(model, 0, iterationCutoff, false, betterResponse);
 			
+			optimalSolver.setStabilization(stabilization, stabilizationParameter);
+			optimalSolver.setColumnAging(columnAgingLimit);
+			optimalSolver.setTimeBudget(timeBudget);
+			
 			optimalSolver.solve();
 			
 			double optimalRuntime = (System.currentTimeMillis() - optimalStart) / 1000.0;
@@ -49,6 +57,8 @@ public class ExampleDARMSOptimal{
 			
 			int masterIterations = optimalSolver.getMasterIterations();
 			int slaveIterations = optimalSolver.getSlaveIterations();
+			int mispricings = optimalSolver.getMispricings();
+			double columnGenerationTime = optimalSolver.getColumnGenerationTime();
 			
 			double oneNormDistance = optimalSolver.getOneNormDistance();
 			
@@ -77,9 +87,15 @@ public class ExampleDARMSOptimal{
 			//optimalSolver1.solve();
 						
 			System.out.print(inputFile + " " + numFlights + " " + numCategories+ " " + numTimeWindows + " ");
-			System.out.print(iterationCutoff + " " + betterResponse + " ");
-			System.out.print(marginalPayoff + " " + oneNormPayoff + " " + oneNormDistance + " ");
-			System.out.println(masterIterations + " " + slaveIterations + " " + optimalRuntime); 
+			System.out.print(iterationCutoff + " " + betterResponse + " " + stabilization + " ");
+			System.out.print(marginalPayoff + " " + oneNormPayoff + " " + oneNormDistance + " " + optimalSolver.getLowerBound() + " ");
+			System.out.print(masterIterations + " " + slaveIterations + " " + mispricings + " " + columnGenerationTime + " " + optimalRuntime);
+			
+			if(timeBudget > 0){
+				System.out.print(" " + timeBudget + " " + optimalSolver.stoppedEarly() + " " + optimalSolver.getBestOneNormDistance() + " " + optimalSolver.getBestPayoffGap());
+			}
+			
+			System.out.println();
 			//System.out.println(baselineDefenderPayoff + " " + baselineRuntime);
 		}
 		catch(Exception e){
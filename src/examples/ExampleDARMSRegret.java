@@ -1,6 +1,5 @@
 package examples;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -9,8 +8,11 @@ import models.PassengerDistribution;
 
 import solvers.DARMSMarginalSolver;
 import solvers.DARMSRegretMarginalSolver;
+import solvers.DARMSUtopiaPointSolver;
+import utilities.DARMSExporter;
 import utilities.DARMSHelper;
 import utilities.DARMSModelBuilder;
+import utilities.DARMSScenarioSampler;
 
 public class ExampleDARMSRegret{
 	public static void main(String[] args){
@@ -18,6 +20,15 @@ public class ExampleDARMSRegret{
 			String cplexFile = args[0];
 			String inputFile = args[1];
 			boolean decomposed = Boolean.parseBoolean(args[3]);
+			int numThreads = (args.length > 4) ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+			Double overflowPenalty = (args.length > 5) ? Double.parseDouble(args[5]) : null;
+			int numScenarios = (args.length > 6) ? Integer.parseInt(args[6]) : 5;
+			// Scenario generation: start from initialScenarios and add up to scenariosPerIteration violated scenarios per round
+			int initialScenarios = (args.length > 7) ? Integer.parseInt(args[7]) : 0;
+			int scenariosPerIteration = (args.length > 8) ? Integer.parseInt(args[8]) : 1;
+			// UNIFORM, LATIN_HYPERCUBE or SOBOL; without it scenarios come from the model's unseeded generator
+			DARMSScenarioSampler.Method samplingMethod = (args.length > 9) ? DARMSScenarioSampler.Method.valueOf(args[9].toUpperCase()) : null;
+			long seed = (args.length > 10) ? Long.parseLong(args[10]) : 0L;
 			
 			long start = System.currentTimeMillis();
 			
@@ -29,28 +40,53 @@ public class ExampleDARMSRegret{
 			
 			System.out.println("Building DARMS model... Completed");
 
-			List<PassengerDistribution> passengerDistributionList = model.getRandomizedPassengerDistributions(5);
+			List<PassengerDistribution> passengerDistributionList;
 			
-			Map<PassengerDistribution, Double> utopiaPoint = new HashMap<PassengerDistribution, Double>();
+			if(samplingMethod != null){
+				DARMSScenarioSampler sampler = new DARMSScenarioSampler(model, samplingMethod, seed);
+				
+				sampler.setThreads(numThreads);
+				
+				passengerDistributionList = sampler.samplePassengerDistributions(numScenarios);
+			}
+			else{
+				passengerDistributionList = model.getRandomizedPassengerDistributions(numScenarios);
+			}
+			
+			DARMSUtopiaPointSolver utopiaPointSolver = new DARMSUtopiaPointSolver(model, decomposed, numThreads);
+			
+			Map<PassengerDistribution, Double> utopiaPoint = utopiaPointSolver.solve(passengerDistributionList);
 			
 			for(PassengerDistribution passengerDistribution : passengerDistributionList){
 				DARMSMarginalSolver solver = new DARMSMarginalSolver(model, passengerDistribution, true, decomposed, true, false);
 				
-				solver.solve();
-			
-				utopiaPoint.put(passengerDistribution, solver.getDefenderPayoff());
-				
 				solver.writeTemporalPassengerDistribution("PassengerDistribution" + passengerDistribution.id() + ".csv");
 				
-				System.out.println("Defender Payoff: " + solver.getDefenderPayoff());
+				System.out.println("Defender Payoff: " + utopiaPoint.get(passengerDistribution));
 			}
 			
 			DARMSRegretMarginalSolver regretSolver = new DARMSRegretMarginalSolver(model, utopiaPoint, decomposed);
 			
+			if(overflowPenalty != null){
+				regretSolver.setOverflowPenalty(overflowPenalty);
+			}
+			
+			regretSolver.setScenarioGeneration(initialScenarios, scenariosPerIteration);
+			
 			regretSolver.solve();
 			
-			regretSolver.writeProblem("DARMS.Regret.lp");
-			regretSolver.writeSolution("DARMS.Regret.Solution.txt");
+			DARMSExporter exporter = DARMSExporter.getDefault();
+			
+			if(exporter.enabled(DARMSExporter.Level.ALL)){
+				String problemFilename = exporter.nextFilename("DARMS.Regret.lp");
+				String solutionFilename = exporter.nextFilename("DARMS.Regret.Solution.txt");
+				
+				regretSolver.writeProblem(problemFilename);
+				regretSolver.writeSolution(solutionFilename);
+				
+				exporter.exported(problemFilename);
+				exporter.exported(solutionFilename);
+			}
 			
 			regretSolver.writeOverflowPassengers("overflow.csv");
 			
@@ -63,7 +99,9 @@ public class ExampleDARMSRegret{
 			double regret = regretSolver.getMaxRegret();
 			double runtime = (System.currentTimeMillis() - start) / 1000.0;
 						
-			System.out.println(inputFile + " " + flightByFlight + " " + decomposed + " " + numFlights + " " +  numCategories+ " " + numTimeWindows + " " + regret + " " + runtime);
+			System.out.println(inputFile + " " + flightByFlight + " " + decomposed + " " + numFlights + " " +  numCategories+ " " + numTimeWindows + " " + regret + " " + runtime + " " + numScenarios + " " + regretSolver.getActiveScenarios() + " " + regretSolver.getScenarioIterations());
+			
+			exporter.flush();
 		}
 		catch(Exception e){
 			e.printStackTrace();
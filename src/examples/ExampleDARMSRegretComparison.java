@@ -7,6 +7,7 @@ import java.util.Map;
 import solvers.DARMSMarginalSolver;
 import utilities.DARMSHelper;
 import utilities.DARMSModelBuilder;
+import utilities.DARMSScenarioSampler;
 
 import models.DARMSModel;
 import models.PassengerDistribution;
@@ -19,6 +20,10 @@ public class ExampleDARMSRegretComparison{
 		try{
 			String cplexFile = args[0];
 			String inputFile = args[1];
+			int numScenarios = (args.length > 2) ? Integer.parseInt(args[2]) : 50;
+			// UNIFORM, LATIN_HYPERCUBE or SOBOL; without it scenarios come from the model's unseeded generator
+			DARMSScenarioSampler.Method samplingMethod = (args.length > 3) ? DARMSScenarioSampler.Method.valueOf(args[3].toUpperCase()) : null;
+			long seed = (args.length > 4) ? Long.parseLong(args[4]) : 0L;
 			
 			long start = System.currentTimeMillis();
 			
@@ -30,7 +35,14 @@ public class ExampleDARMSRegretComparison{
 			
 			System.out.println("Building DARMS model... Completed");
 
-			List<PassengerDistribution> passengerDistributionList = model.getRandomizedPassengerDistributions(50);
+			List<PassengerDistribution> passengerDistributionList;
+			
+			if(samplingMethod != null){
+				passengerDistributionList = new DARMSScenarioSampler(model, samplingMethod, seed).samplePassengerDistributions(numScenarios);
+			}
+			else{
+				passengerDistributionList = model.getRandomizedPassengerDistributions(numScenarios);
+			}
 			
 			Map<PassengerDistribution, DARMSMarginalSolver> distributionSolverMap = new HashMap<PassengerDistribution, DARMSMarginalSolver>();
 			Map<PassengerDistribution, Double> regretMap = new HashMap<PassengerDistribution, Double>();
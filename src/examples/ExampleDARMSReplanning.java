@@ -0,0 +1,62 @@
+package examples;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import models.DARMSModel;
+import models.Flight;
+import models.PassengerDistribution;
+import models.RiskCategory;
+import solvers.DARMSMarginalSolver;
+import utilities.DARMSHelper;
+import utilities.DARMSModelBuilder;
+
+public class ExampleDARMSReplanning{
+	public static void main(String[] args){
+		try{
+			String cplexFile = args[0];
+			String inputFile = args[1];
+			double noise = (args.length > 2) ? Double.parseDouble(args[2]) : 0.2;
+			long seed = (args.length > 3) ? Long.parseLong(args[3]) : 1;
+			
+			DARMSHelper.loadLibrariesCplex(cplexFile);
+			
+			DARMSModel model = DARMSModelBuilder.buildModel(inputFile, false);
+			
+			PassengerDistribution planned = model.getPassengerDistribution();
+			
+			long start = System.currentTimeMillis();
+			
+			DARMSMarginalSolver solver = new DARMSMarginalSolver(model, true, false, model.flightByFlight(), false);
+			
+			solver.solve();
+			
+			System.out.println(inputFile + " " + solver.getDefenderPayoff() + " " + (System.currentTimeMillis() - start) / 1000.0);
+			
+			Random rand = new Random(seed);
+			
+			// Observed check-ins deviate from the planned arrival curve by up to +/- noise
+			for(int t : model.getTimeWindows()){
+				Map<Flight, Map<RiskCategory, Integer>> observed = new HashMap<Flight, Map<RiskCategory, Integer>>();
+				
+				for(Flight f : model.getFlights(t)){
+					observed.put(f, new HashMap<RiskCategory, Integer>());
+					
+					for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+						double factor = 1.0 + noise * (2.0 * rand.nextDouble() - 1.0);
+						
+						observed.get(f).put(c, (int)(planned.get(t, f, c) * factor + 0.5));
+					}
+				}
+				
+				solver.observeTimeWindow(t, observed);
+				
+				System.out.println(t + " " + solver.getDefenderPayoff() + " " + solver.getReplanRuntime() + " " + solver.getObservedOverflow().get(t));
+			}
+		}
+		catch(Exception e){
+			e.printStackTrace();
+		}
+	}
+}
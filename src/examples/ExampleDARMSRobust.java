@@ -0,0 +1,79 @@
+package examples;
+
+import java.util.List;
+import java.util.Map;
+
+import models.DARMSModel;
+import models.Flight;
+import models.PassengerDistribution;
+import models.RiskCategory;
+import models.ScreeningOperation;
+import solvers.DARMSMarginalSolver;
+import utilities.DARMSHelper;
+import utilities.DARMSModelBuilder;
+
+public class ExampleDARMSRobust{
+	// ExampleDARMSRobust <cplex config> <input file> <deviation> <budget> [samples]
+	public static void main(String[] args){
+		try{
+			String cplexFile = args[0];
+			String inputFile = args[1];
+			double deviation = Double.parseDouble(args[2]);
+			double budget = Double.parseDouble(args[3]);
+			int numSamples = (args.length > 4) ? Integer.parseInt(args[4]) : 50;
+			
+			DARMSHelper.loadLibrariesCplex(cplexFile);
+			
+			DARMSModel model = DARMSModelBuilder.buildModel(inputFile, false);
+			
+			long nominalStart = System.currentTimeMillis();
+			
+			DARMSMarginalSolver nominalSolver = new DARMSMarginalSolver(model, true, false, model.flightByFlight(), false);
+			
+			nominalSolver.solve();
+			
+			double nominalRuntime = (System.currentTimeMillis() - nominalStart) / 1000.0;
+			
+			long robustStart = System.currentTimeMillis();
+			
+			DARMSMarginalSolver robustSolver = new DARMSMarginalSolver(model, true, false, model.flightByFlight(), false);
+			
+			robustSolver.setRobustness(deviation, budget);
+			robustSolver.solve();
+			
+			double robustRuntime = (System.currentTimeMillis() - robustStart) / 1000.0;
+			
+			Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> nominalStrategy = nominalSolver.getDefenderScreeningStrategy();
+			Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> robustStrategy = robustSolver.getDefenderScreeningStrategy();
+			
+			// Overflow of both strategies on sampled passenger distributions
+			List<PassengerDistribution> samples = model.getRandomizedPassengerDistributions(numSamples);
+			
+			double nominalOverflow = 0.0;
+			double nominalMaxOverflow = 0.0;
+			double robustOverflow = 0.0;
+			double robustMaxOverflow = 0.0;
+			
+			for(PassengerDistribution pd : samples){
+				DARMSMarginalSolver evaluator = new DARMSMarginalSolver(model, pd, true, false, model.flightByFlight(), false);
+				
+				double overflow = evaluator.calculateOverflowPassengers(nominalStrategy);
+				
+				nominalOverflow += overflow / samples.size();
+				nominalMaxOverflow = Math.max(nominalMaxOverflow, overflow);
+				
+				overflow = evaluator.calculateOverflowPassengers(robustStrategy);
+				
+				robustOverflow += overflow / samples.size();
+				robustMaxOverflow = Math.max(robustMaxOverflow, overflow);
+			}
+			
+			System.out.print(inputFile + " " + deviation + " " + budget + " " + numSamples + " ");
+			System.out.print(nominalSolver.getDefenderPayoff() + " " + nominalOverflow + " " + nominalMaxOverflow + " " + nominalRuntime + " ");
+			System.out.println(robustSolver.getDefenderPayoff() + " " + robustOverflow + " " + robustMaxOverflow + " " + robustRuntime);
+		}
+		catch(Exception e){
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package examples;
+
+import java.util.Map;
+
+import models.DARMSModel;
+import models.Flight;
+import models.RiskCategory;
+import models.ScreeningOperation;
+import models.ScreeningResource;
+import solvers.DARMSMarginalSolver;
+import utilities.DARMSHelper;
+import utilities.DARMSModelBuilder;
+
+public class ExampleDARMSRollingHorizon{
+	public static void main(String[] args){
+		try{
+			String cplexFile = args[0];
+			String inputFile = args[1];
+			int blockSize = Integer.parseInt(args[2]);
+			int overlap = Integer.parseInt(args[3]);
+			boolean zeroSum = true;
+			
+			DARMSHelper.loadLibrariesCplex(cplexFile);
+			
+			DARMSModel model = DARMSModelBuilder.buildModel(inputFile, false);
+			
+			final long start = System.currentTimeMillis();
+			
+			DARMSMarginalSolver solver = new DARMSMarginalSolver(model, zeroSum, false, model.flightByFlight(), false);
+			
+			solver.setRollingHorizonListener(new DARMSMarginalSolver.RollingHorizonListener(){
+				public void committed(int t, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>> screeningStrategy, Map<ScreeningResource, Double> overflow){
+					System.out.println("Committed " + t + " " + overflow + " " + (System.currentTimeMillis() - start) / 1000.0);
+				}
+			});
+			
+			solver.solveRollingHorizon(blockSize, overlap);
+			
+			double rollingRuntime = (System.currentTimeMillis() - start) / 1000.0;
+			
+			double totalOverflow = 0.0;
+			
+			for(int t : solver.getRollingHorizonOverflow().keySet()){
+				for(ScreeningResource r : solver.getRollingHorizonOverflow().get(t).keySet()){
+					totalOverflow += solver.getRollingHorizonOverflow().get(t).get(r);
+				}
+			}
+			
+			solver.writeDefenderScreeningStrategy("RollingHorizonScreeningStrategy.csv");
+			
+			System.out.println(inputFile + " " + model.getTimeWindows().size() + " " + blockSize + " " + overlap + " " + solver.getDefenderPayoff() + " " + totalOverflow + " " + rollingRuntime);
+		}
+		catch(Exception e){
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package examples;
+
+import utilities.DARMSHelper;
+import utilities.DARMSService;
+
+public class ExampleDARMSService{
+	// ExampleDARMSService <cplex config> <port> <threads> [name=input file]...
+	public static void main(String[] args){
+		try{
+			String cplexFile = args[0];
+			int port = Integer.parseInt(args[1]);
+			int numThreads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+			
+			DARMSHelper.loadLibrariesCplex(cplexFile);
+			
+			final DARMSService service = new DARMSService(port, numThreads);
+			
+			for(int i = 3; i < args.length; i++){
+				String[] arg = args[i].split("=");
+				
+				long start = System.currentTimeMillis();
+				
+				service.loadModel(arg[0].trim(), arg[1].trim());
+				
+				System.out.println("Loaded " + arg[0].trim() + " " + (System.currentTimeMillis() - start) / 1000.0);
+			}
+			
+			Runtime.getRuntime().addShutdownHook(new Thread(){
+				public void run(){
+					service.stop();
+				}
+			});
+			
+			service.start();
+			
+			System.out.println("Listening on http://127.0.0.1:" + service.getPort());
+		}
+		catch(Exception e){
+			e.printStackTrace();
+		}
+	}
+}
@@ -3,12 +3,15 @@ import models.DARMSModel;
 import solvers.DARMSMarginalSolver;
 import utilities.DARMSHelper;
 import utilities.DARMSModelBuilder;
+import utilities.DARMSResultCache;
 
 public class ExampleFlightByFlightComparison{
 	public static void main(String[] args){
 		try{
 			String cplexFile = args[0];
 			String inputFile = args[1];
+			// Optional directory for reusing results across runs, bounded to 256 MB
+			DARMSResultCache resultCache = (args.length > 2) ? new DARMSResultCache(args[2], 256L * 1024 * 1024) : null;
 			
 			DARMSHelper.loadLibrariesCplex(cplexFile);
 			
@@ -18,6 +21,7 @@ public class ExampleFlightByFlightComparison{
 			
 			DARMSMarginalSolver naiveSolver = new DARMSMarginalSolver(model, true, false, false, true);
 			
+			naiveSolver.setResultCache(resultCache);
 			naiveSolver.solve();
 			
 			double naiveRuntime = (System.currentTimeMillis() - naiveStartTime) / 1000.0;
@@ -29,6 +33,7 @@ public class ExampleFlightByFlightComparison{
 			
 			DARMSMarginalSolver staticSolver = new DARMSMarginalSolver(model, true, false, false, false);
 			
+			staticSolver.setResultCache(resultCache);
 			staticSolver.solve();
 			
 			double staticRuntime = (System.currentTimeMillis() - staticStartTime) / 1000.0;
@@ -40,6 +45,7 @@ public class ExampleFlightByFlightComparison{
 			
 			DARMSMarginalSolver dynamicSolver = new DARMSMarginalSolver(model, true, false, true, false);
 			
+			dynamicSolver.setResultCache(resultCache);
 			dynamicSolver.solve();
 			
 			double dynamicRuntime = (System.currentTimeMillis() - dynamicStartTime) / 1000.0;
@@ -1,17 +1,13 @@
 package examples.sensitivity;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
-import solvers.DARMSMarginalSolver;
+import solvers.DARMSAdversaryDistributionSweep;
 import utilities.DARMSHelper;
 import utilities.DARMSModelBuilder;
 
 import models.AdversaryDistribution;
 import models.DARMSModel;
-import models.RiskCategory;
 
 public class ExampleDARMSAdversaryDistributionAnalysis{
 	public static void main(String[] args){
@@ -19,57 +15,23 @@ public class ExampleDARMSAdversaryDistributionAnalysis{
 			String cplexFile = args[0];
 			String inputFile = args[1];
 			int numSamples = Integer.parseInt(args[2]);
+			int numWorkers = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+			String outputFile = (args.length > 4) ? args[4] : "AdversaryDistributionAnalysis.csv";
 			
 			DARMSHelper.loadLibrariesCplex(cplexFile);
 			
 			DARMSModel model = DARMSModelBuilder.buildModel(inputFile, false);
 			
-			AdversaryDistribution defaultDistribution = new AdversaryDistribution(model.getAdversaryDistribution());
-			
-			DARMSMarginalSolver defaultSolver = new DARMSMarginalSolver(model, true, false, true, false);
-			
-			defaultSolver.solve();
-			
 			List<AdversaryDistribution> adversaryDistributionList = model.getRandomizedAdversaryDistributions(numSamples);
 			
-			Map<RiskCategory, Double> defenderPayoffs = defaultSolver.getDefenderPayoffs();
-			
-			List<RiskCategory> categoryList = new ArrayList<RiskCategory>(model.getAdversaryDistribution().keySet());
-			
-			Collections.sort(categoryList);
+			DARMSAdversaryDistributionSweep sweep = new DARMSAdversaryDistributionSweep(model, numWorkers);
 			
-			for(AdversaryDistribution ad : adversaryDistributionList){
-				model.setAdversaryDistribution(ad.distribution());
-				
-				DARMSMarginalSolver solver = new DARMSMarginalSolver(model, true, false, true, false);
-				
-				solver.solve();
-				
-				double defenderPayoff = 0.0;
-				
-				for(RiskCategory c : categoryList){
-					defenderPayoff += ad.get(c) * defenderPayoffs.get(c);
-				}
-				
-				double absoluteRegret = solver.getDefenderPayoff() - defenderPayoff;
-				
-				double relativeRegret = Math.abs(absoluteRegret / defenderPayoff); 
-				
-				double distance = DARMSHelper.calculateSquaredDistance(defaultDistribution, ad);
-				
-				double roundedDistance = ((int)(distance * 10) + 1) / 10.0;
-				
-				System.out.print(inputFile + " " + ad + " " + distance + " " + roundedDistance + " " + absoluteRegret + " " + relativeRegret);
+			sweep.run(adversaryDistributionList, outputFile);
 			
-				for(RiskCategory c : categoryList){
-					System.out.print(" " + ad.get(c));
-				}
-				
-				System.out.println();
-			}
+			System.out.println(inputFile + " " + numSamples + " " + numWorkers + " " + sweep.getSamplesSolved() + " " + sweep.getRuntime() + " " + sweep.getSamplesPerSecond());
 		}
 		catch(Exception e){
 			e.printStackTrace();
 		}
 	}
-}
\ No newline at end of file
+}
@@ -27,22 +27,24 @@ public class ExampleDARMSPayoffStructureAnalysis{
 			
 			PayoffStructure defaultStructure = model.getPayoffStructure();
 			
-			DARMSMarginalSolver defaultSolver = new DARMSMarginalSolver(model, true, false, true, false);
+			DARMSMarginalSolver solver = new DARMSMarginalSolver(model, true, false, true, false);
 			
-			defaultSolver.solve();
+			solver.solve();
 			
 			//double defaultDefenderPayoff = defaultSolver.getDefenderPayoff();
 			
-			Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> screeningStrategy = defaultSolver.getDefenderScreeningStrategy();
+			Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> screeningStrategy = solver.getDefenderScreeningStrategy();
 			
 			List<PayoffStructure> payoffStructureList = model.getRandomizedPayoffStructures(numSamples, heterogeneity);
 			
+			Map<PayoffStructure, Double> defenderPayoffs = solver.calculateDefenderPayoffs(screeningStrategy, payoffStructureList);
+			
 			for(PayoffStructure ps : payoffStructureList){
-				DARMSMarginalSolver solver = new DARMSMarginalSolver(model, ps, true, false, true, false);
+				solver.setPayoffStructure(ps);
 				
-				solver.solve();
+				solver.resolve();
 				
-				double defenderPayoff = solver.calculateDefenderPayoff(screeningStrategy);
+				double defenderPayoff = defenderPayoffs.get(ps);
 				
 				double absoluteRegret = solver.getDefenderPayoff() - defenderPayoff;
 				
@@ -57,4 +59,4 @@ public class ExampleDARMSPayoffStructureAnalysis{
 			e.printStackTrace();
 		}
 	}
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package models;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -20,6 +21,10 @@ public class DARMSModel {
 	private Map<PostScreeningResource, Integer> postScreeningResources;
 	private List<AttackMethod> attackMethods;
 	private ResourceFines  resourceFines;
+	private String fineDist;
+	private double fineMin;
+	private double fineMax;
+	private int numberTests;
 	private boolean flightByFlight;
 	private int shiftStartTime;
 	private int shiftDuration;
@@ -33,6 +38,12 @@ public class DARMSModel {
 	
 	private PassengerDistribution passengerDistribution;
 	private PayoffStructure payoffStructure;
+	
+	// Detection probability of every screening operation, indexed [operation][risk category][attack method] through id lookups
+	private double[][][] operationEffectiveness;
+	private int[] operationIndex;
+	private int[] categoryIndex;
+	private int[] methodIndex;
 
 	public DARMSModel(List<Flight> flights, 
 			Map<RiskCategory, Double> adversaryDistribution,
@@ -59,6 +70,10 @@ public class DARMSModel {
 		this.shiftStartTime = shiftStartTime;
 		this.shiftDuration = shiftDuration;
 		this.timeGranularity = timeGranularity;
+		this.fineDist = fineDist;
+		this.fineMin = fineMin;
+		this.fineMax = fineMax;
+		this.numberTests = numberTests;
 		
 		for(ScreeningOperation o : this.screeningOperations){
 			for(ScreeningResource r : o.getResources()){
@@ -75,130 +90,457 @@ public class DARMSModel {
 		}
 		
 		this.setResourceFines( fineDist, fineMin, fineMax, numberTests, thisTest );
+		
+		buildEffectivenessTable();
 	}
 	
-	public void calculateTemporalPassengerDistributions(){
-		NormalDistribution domesticDistribution = new NormalDistribution(-90, 30);
-		NormalDistribution internationalDistribution = new NormalDistribution(-120, 40);
-		NormalDistribution distribution = null;
+	private void buildEffectivenessTable(){
+		List<RiskCategory> riskCategories = new ArrayList<RiskCategory>(adversaryDistribution.keySet());
+		
+		int maxOperationID = 0;
+		int maxCategoryID = 0;
+		int maxMethodID = 0;
+		
+		for(ScreeningOperation o : screeningOperations){
+			maxOperationID = Math.max(maxOperationID, o.getID());
+		}
+		
+		for(RiskCategory c : riskCategories){
+			maxCategoryID = Math.max(maxCategoryID, c.id());
+		}
+		
+		for(AttackMethod m : attackMethods){
+			maxMethodID = Math.max(maxMethodID, m.id());
+		}
+		
+		operationIndex = new int[maxOperationID + 1];
+		categoryIndex = new int[maxCategoryID + 1];
+		methodIndex = new int[maxMethodID + 1];
+		
+		// -1 marks ids that were not in the model when the table was built
+		Arrays.fill(operationIndex, -1);
+		Arrays.fill(categoryIndex, -1);
+		Arrays.fill(methodIndex, -1);
+		
+		for(int i = 0; i < riskCategories.size(); i++){
+			categoryIndex[riskCategories.get(i).id()] = i;
+		}
+		
+		for(int i = 0; i < attackMethods.size(); i++){
+			methodIndex[attackMethods.get(i).id()] = i;
+		}
+		
+		operationEffectiveness = new double[screeningOperations.size()][riskCategories.size()][attackMethods.size()];
+		
+		for(int i = 0; i < screeningOperations.size(); i++){
+			ScreeningOperation o = screeningOperations.get(i);
+			
+			operationIndex[o.getID()] = i;
+			
+			for(int j = 0; j < riskCategories.size(); j++){
+				for(int k = 0; k < attackMethods.size(); k++){
+					operationEffectiveness[i][j][k] = o.effectiveness(riskCategories.get(j), attackMethods.get(k));
+				}
+			}
+		}
+	}
+	
+	public double effectiveness(ScreeningOperation o, RiskCategory c, AttackMethod m){
+		return operationEffectiveness[lookup(operationIndex, o.getID(), o)][lookup(categoryIndex, c.id(), c)][lookup(methodIndex, m.id(), m)];
+	}
+	
+	private static int lookup(int[] index, int id, Object key){
+		int i = (id >= 0 && id < index.length) ? index[id] : -1;
+		
+		if(i < 0){
+			throw new IllegalArgumentException(key + " is not part of the effectiveness table of this model.");
+		}
+		
+		return i;
+	}
+	
+	// Copy-on-write variant: shares every structure of the base model until one of the with* methods replaces it
+	private DARMSModel(DARMSModel base){
+		this.flights = base.flights;
+		this.adversaryDistribution = base.adversaryDistribution;
+		this.attackMethods = base.attackMethods;
+		this.screeningOperations = base.screeningOperations;
+		this.screeningResources = base.screeningResources;
+		this.postScreeningResources = base.postScreeningResources;
+		this.resourceFines = base.resourceFines;
+		this.fineDist = base.fineDist;
+		this.fineMin = base.fineMin;
+		this.fineMax = base.fineMax;
+		this.numberTests = base.numberTests;
+		this.flightByFlight = base.flightByFlight;
+		this.shiftStartTime = base.shiftStartTime;
+		this.shiftDuration = base.shiftDuration;
+		this.timeGranularity = base.timeGranularity;
+		this.timeWindows = base.timeWindows;
+		this.flightMap = base.flightMap;
+		this.passengerDistribution = base.passengerDistribution;
+		this.payoffStructure = base.payoffStructure;
+		this.operationEffectiveness = base.operationEffectiveness;
+		this.operationIndex = base.operationIndex;
+		this.categoryIndex = base.categoryIndex;
+		this.methodIndex = base.methodIndex;
+	}
+	
+	// Fines of test thisTest, drawn from a generator seeded with the test number and not written to disk
+	public DARMSModel withResourceFines(int thisTest) throws Exception{
+		Map<Integer, Map<ScreeningResource, Double>> fines = ResourceFines.calculateFines(fineDist, fineMin, fineMax, numberTests, thisTest, this, new Random(thisTest));
+		
+		if(fines == null){
+			throw new Exception("Unknown fine distribution " + fineDist + ".");
+		}
+		
+		DARMSModel variant = new DARMSModel(this);
+		
+		variant.resourceFines = new ResourceFines(thisTest, fines);
+		
+		return variant;
+	}
+	
+	public DARMSModel withResourceFines(Map<Integer, Map<ScreeningResource, Double>> fines){
+		DARMSModel variant = new DARMSModel(this);
+		
+		variant.resourceFines = new ResourceFines(resourceFines.getTrials(), fines);
+		
+		return variant;
+	}
+	
+	public DARMSModel withAdversaryDistribution(Map<RiskCategory, Double> adversaryDistribution) throws Exception{
+		if(!adversaryDistribution.keySet().equals(this.adversaryDistribution.keySet())){
+			throw new Exception("Adversary distribution does not cover the risk categories of the base model.");
+		}
+		
+		DARMSModel variant = new DARMSModel(this);
+		
+		variant.adversaryDistribution = adversaryDistribution;
+		
+		return variant;
+	}
+	
+	public DARMSModel withPayoffStructure(PayoffStructure payoffStructure) throws Exception{
+		for(Flight f : flights){
+			if(!payoffStructure.keySet().contains(f)){
+				throw new Exception("Payoff structure " + payoffStructure + " has no payoffs for flight " + f + ".");
+			}
+		}
+		
+		DARMSModel variant = new DARMSModel(this);
 		
+		variant.payoffStructure = payoffStructure;
+		
+		return variant;
+	}
+	
+	public DARMSModel withScreeningResources(Map<ScreeningResource, Integer> screeningResources) throws Exception{
+		Map<ScreeningResource, Integer> resourceCounts = new HashMap<ScreeningResource, Integer>();
+		
+		for(ScreeningResource r : screeningResources.keySet()){
+			if(!this.screeningResources.containsKey(r)){
+				throw new Exception("Screening resource " + r + " is not part of the base model.");
+			}
+			
+			resourceCounts.put(r, screeningResources.get(r));
+		}
+		
+		for(ScreeningResource r : this.screeningResources.keySet()){
+			if(!resourceCounts.containsKey(r)){
+				resourceCounts.put(r, 0);
+			}
+		}
+		
+		DARMSModel variant = new DARMSModel(this);
+		
+		variant.screeningResources = resourceCounts;
+		
+		return variant;
+	}
+	
+	public DARMSModel withPassengerDistribution(PassengerDistribution passengerDistribution){
+		DARMSModel variant = new DARMSModel(this);
+		
+		variant.passengerDistribution = passengerDistribution;
+		
+		return variant;
+	}
+	
+	public DARMSModel withScreeningOperations(List<ScreeningOperation> screeningOperations) throws Exception{
+		for(ScreeningOperation o : screeningOperations){
+			for(ScreeningResource r : o.getResources()){
+				if(!this.screeningResources.containsKey(r)){
+					throw new Exception("Screening operation " + o + " uses resource " + r + " which is not part of the base model.");
+				}
+			}
+		}
+		
+		DARMSModel variant = new DARMSModel(this);
+		
+		variant.screeningOperations = screeningOperations;
+		variant.buildEffectivenessTable();
+		
+		return variant;
+	}
+	
+	// Variant over a different set of flights per time window, e.g. aggregated flights; every flight must be covered by the payoff structure
+	public DARMSModel withFlightMap(List<Flight> flights, Map<Integer, List<Flight>> flightMap, PassengerDistribution passengerDistribution, PayoffStructure payoffStructure) throws Exception{
+		for(Flight f : flights){
+			if(!payoffStructure.keySet().contains(f)){
+				throw new Exception("Payoff structure " + payoffStructure + " has no payoffs for flight " + f + ".");
+			}
+		}
+		
+		DARMSModel variant = new DARMSModel(this);
+		
+		variant.flights = flights;
+		variant.flightMap = flightMap;
+		variant.passengerDistribution = passengerDistribution;
+		variant.payoffStructure = payoffStructure;
+		
+		return variant;
+	}
+	
+	public void calculateTemporalPassengerDistributions(){
 		flightMap = new HashMap<Integer, List<Flight>>();
 		
 		for(Flight f : flights){
-			Map<RiskCategory, Integer> passengerDistribution = f.getPassengerDistribution();
+			Map<Integer, Map<RiskCategory, Integer>> temporalPassengerDistribution = calculateTemporalPassengerDistribution(f);
 			
-			Map<Integer, Map<RiskCategory, Integer>> temporalPassengerDistribution = new HashMap<Integer, Map<RiskCategory, Integer>>();
+			f.setTemporalPassengerDistribution(temporalPassengerDistribution);
 			
-			if(f.getFlightType() == Flight.FlightType.DOMESTIC){
-				distribution = domesticDistribution;
-			}
-			else if(f.getFlightType() == Flight.FlightType.INTERNATIONAL){
-				distribution = internationalDistribution;
+			for(int t : temporalPassengerDistribution.keySet()){
+				for(RiskCategory c : temporalPassengerDistribution.get(t).keySet()){
+					if(temporalPassengerDistribution.get(t).get(c) > 0){
+						if(!flightMap.containsKey(t)){
+							flightMap.put(t, new ArrayList<Flight>());
+						}
+							
+						flightMap.get(t).add(f);
+						break;
+					}
+				}
 			}
+		}
+	}
+	
+	// Spreads the passengers of one flight over the time windows before its departure
+	private Map<Integer, Map<RiskCategory, Integer>> calculateTemporalPassengerDistribution(Flight f){
+		NormalDistribution domesticDistribution = new NormalDistribution(-90, 30);
+		NormalDistribution internationalDistribution = new NormalDistribution(-120, 40);
+		NormalDistribution distribution = null;
+		
+		Map<RiskCategory, Integer> passengerDistribution = f.getPassengerDistribution();
+		
+		Map<Integer, Map<RiskCategory, Integer>> temporalPassengerDistribution = new HashMap<Integer, Map<RiskCategory, Integer>>();
+		
+		if(f.getFlightType() == Flight.FlightType.DOMESTIC){
+			distribution = domesticDistribution;
+		}
+		else if(f.getFlightType() == Flight.FlightType.INTERNATIONAL){
+			distribution = internationalDistribution;
+		}
+		
+		for(RiskCategory c : passengerDistribution.keySet()){
+			Map<Double, Set<Integer>> modMap = new HashMap<Double, Set<Integer>>();
+			int passengersAssigned = 0;
 			
-			for(RiskCategory c : passengerDistribution.keySet()){
-				Map<Double, Set<Integer>> modMap = new HashMap<Double, Set<Integer>>();
-				int passengersAssigned = 0;
+			for(int t = 0; t < timeWindows.size(); t++){
+				double prob;
 				
-				for(int t = 0; t < timeWindows.size(); t++){
-					double prob;
+				if(timeWindows.size() == 1){
+					prob = distribution.cumulativeProbability(timeWindows.get(0) + timeGranularity - f.getDepartureTime());
+				}
+				else if(t == 0){
+					prob = distribution.cumulativeProbability(timeWindows.get(t + 1) - f.getDepartureTime());
+				}
+				else if(timeWindows.get(t) < f.getDepartureTime() && t == timeWindows.size() - 1){
+					double prob1 = distribution.cumulativeProbability(timeWindows.get(t) - f.getDepartureTime());
 					
-					if(timeWindows.size() == 1){
-						prob = distribution.cumulativeProbability(timeWindows.get(0) + timeGranularity - f.getDepartureTime());
-					}
-					else if(t == 0){
-						prob = distribution.cumulativeProbability(timeWindows.get(t + 1) - f.getDepartureTime());
-					}
-					else if(timeWindows.get(t) < f.getDepartureTime() && t == timeWindows.size() - 1){
-						double prob1 = distribution.cumulativeProbability(timeWindows.get(t) - f.getDepartureTime());
-						
-						prob = 1.0 - prob1;
-					}
-					else if(timeWindows.get(t) < f.getDepartureTime() && f.getDepartureTime() <= timeWindows.get(t + 1)){
-						double prob1 = distribution.cumulativeProbability(timeWindows.get(t) - f.getDepartureTime());
-						
-						prob = 1.0 - prob1;
-					}
-					else if(timeWindows.get(t) < f.getDepartureTime()){
-						double prob1 = distribution.cumulativeProbability(timeWindows.get(t) - f.getDepartureTime());
-						double prob2 = distribution.cumulativeProbability(timeWindows.get(t + 1) - f.getDepartureTime());
-						
-						prob = prob2 - prob1;
-					}
-					else{
-						continue;
-					}
+					prob = 1.0 - prob1;
+				}
+				else if(timeWindows.get(t) < f.getDepartureTime() && f.getDepartureTime() <= timeWindows.get(t + 1)){
+					double prob1 = distribution.cumulativeProbability(timeWindows.get(t) - f.getDepartureTime());
 					
-					double numPassengers = passengerDistribution.get(c) * prob;
-				
-					if(!modMap.containsKey(numPassengers % 1.0)){
-						modMap.put(numPassengers % 1.0, new HashSet<Integer>());
-					}
+					prob = 1.0 - prob1;
+				}
+				else if(timeWindows.get(t) < f.getDepartureTime()){
+					double prob1 = distribution.cumulativeProbability(timeWindows.get(t) - f.getDepartureTime());
+					double prob2 = distribution.cumulativeProbability(timeWindows.get(t + 1) - f.getDepartureTime());
 					
-					modMap.get(numPassengers % 1.0).add(timeWindows.get(t));
-						
-					if(!temporalPassengerDistribution.containsKey(timeWindows.get(t))){
-						temporalPassengerDistribution.put(timeWindows.get(t), new HashMap<RiskCategory, Integer>());
-					}
-						
-					temporalPassengerDistribution.get(timeWindows.get(t)).put(c, (int)numPassengers);
-						
-					passengersAssigned += (int)numPassengers;
+					prob = prob2 - prob1;
+				}
+				else{
+					continue;
 				}
 				
-				List<Double> modList = new ArrayList<Double>(modMap.keySet());
-				
-				Collections.sort(modList);
-				Collections.reverse(modList);
+				double numPassengers = passengerDistribution.get(c) * prob;
+			
+				if(!modMap.containsKey(numPassengers % 1.0)){
+					modMap.put(numPassengers % 1.0, new HashSet<Integer>());
+				}
 				
-				for(double modValue : modList){
-					for(Integer timeWindow : modMap.get(modValue)){
-						while(passengersAssigned < passengerDistribution.get(c)){
-							int currentlyAssigned = temporalPassengerDistribution.get(timeWindow).get(c);
-							
-							temporalPassengerDistribution.get(timeWindow).put(c, currentlyAssigned + 1);
-							passengersAssigned++;
-						}
-					}
+				modMap.get(numPassengers % 1.0).add(timeWindows.get(t));
+					
+				if(!temporalPassengerDistribution.containsKey(timeWindows.get(t))){
+					temporalPassengerDistribution.put(timeWindows.get(t), new HashMap<RiskCategory, Integer>());
 				}
+					
+				temporalPassengerDistribution.get(timeWindows.get(t)).put(c, (int)numPassengers);
+					
+				passengersAssigned += (int)numPassengers;
 			}
 			
-			Set<Integer> removeableTimeWindows = new HashSet<Integer>();
+			List<Double> modList = new ArrayList<Double>(modMap.keySet());
 			
-			for(int timeWindow : temporalPassengerDistribution.keySet()){
-				boolean removeTimeWindow = true;
-				
-				for(RiskCategory c : temporalPassengerDistribution.get(timeWindow).keySet()){
-					if(temporalPassengerDistribution.get(timeWindow).get(c) > 0){
-						removeTimeWindow = false;
-						break;
+			Collections.sort(modList);
+			Collections.reverse(modList);
+			
+			for(double modValue : modList){
+				for(Integer timeWindow : modMap.get(modValue)){
+					while(passengersAssigned < passengerDistribution.get(c)){
+						int currentlyAssigned = temporalPassengerDistribution.get(timeWindow).get(c);
+						
+						temporalPassengerDistribution.get(timeWindow).put(c, currentlyAssigned + 1);
+						passengersAssigned++;
 					}
 				}
-				
-				if(removeTimeWindow){
-					removeableTimeWindows.add(timeWindow);
-				}	
 			}
+		}
+		
+		Set<Integer> removeableTimeWindows = new HashSet<Integer>();
+		
+		for(int timeWindow : temporalPassengerDistribution.keySet()){
+			boolean removeTimeWindow = true;
 			
-			for(int timeWindow : removeableTimeWindows){
-				temporalPassengerDistribution.remove(timeWindow);
+			for(RiskCategory c : temporalPassengerDistribution.get(timeWindow).keySet()){
+				if(temporalPassengerDistribution.get(timeWindow).get(c) > 0){
+					removeTimeWindow = false;
+					break;
+				}
 			}
 			
-			f.setTemporalPassengerDistribution(temporalPassengerDistribution);
+			if(removeTimeWindow){
+				removeableTimeWindows.add(timeWindow);
+			}	
+		}
+		
+		for(int timeWindow : removeableTimeWindows){
+			temporalPassengerDistribution.remove(timeWindow);
+		}
+		
+		return temporalPassengerDistribution;
+	}
+	
+	// Flight events leave this model untouched: each one returns a copy-on-write variant with its own flight list, flight
+	// map, passenger distribution and payoff structure, in which only the temporal distribution of the affected flight is
+	// recomputed. Other variants and solvers of this model keep seeing the old flights. A delay replaces the flight by a
+	// copy with the new departure time. The returned event carries the variant and is handed to
+	// DARMSMarginalSolver.applyFlightEvent.
+	public FlightEvent delayFlight(Flight f, int departureTime) throws Exception{
+		long startTime = System.nanoTime();
+		
+		if(!flights.contains(f)){
+			throw new Exception("Flight " + f + " is not part of the model.");
+		}
+		
+		Flight delayed = new Flight(f.toString(), f.getFlightType(), departureTime, f.getPassengerDistribution());
+		
+		delayed.setPayoffs(f.getDefUncovPayoff(), f.getDefCovPayoff(), f.getAttUncovPayoff(), f.getAttCovPayoff());
+		
+		DARMSModel variant = flightEventVariant();
+		
+		Set<Integer> previousTimeWindows = variant.removeFromFlightMap(f);
+		
+		variant.flights.set(variant.flights.indexOf(f), delayed);
+		variant.payoffStructure.put(delayed, payoffStructure.defCov(f), payoffStructure.defUncov(f), payoffStructure.attCov(f), payoffStructure.attUncov(f));
+		
+		Set<Integer> currentTimeWindows = variant.addToFlightMap(delayed);
+		
+		return new FlightEvent(FlightEvent.Type.DELAY, f, delayed, previousTimeWindows, currentTimeWindows, this, variant, startTime);
+	}
+	
+	public FlightEvent cancelFlight(Flight f) throws Exception{
+		long startTime = System.nanoTime();
+		
+		if(!flights.contains(f)){
+			throw new Exception("Flight " + f + " is not part of the model.");
+		}
+		
+		DARMSModel variant = flightEventVariant();
+		
+		Set<Integer> previousTimeWindows = variant.removeFromFlightMap(f);
+		
+		variant.flights.remove(f);
+		
+		return new FlightEvent(FlightEvent.Type.CANCEL, f, f, previousTimeWindows, new HashSet<Integer>(), this, variant, startTime);
+	}
+	
+	public FlightEvent addFlight(Flight f, int defCov, int defUncov, int attCov, int attUncov) throws Exception{
+		long startTime = System.nanoTime();
+		
+		if(flights.contains(f)){
+			throw new Exception("Flight " + f + " is already part of the model.");
+		}
+		
+		DARMSModel variant = flightEventVariant();
+		
+		variant.flights.add(f);
+		variant.payoffStructure.put(f, defCov, defUncov, attCov, attUncov);
+		
+		Set<Integer> currentTimeWindows = variant.addToFlightMap(f);
+		
+		return new FlightEvent(FlightEvent.Type.ADD, f, f, new HashSet<Integer>(), currentTimeWindows, this, variant, startTime);
+	}
+	
+	// Copies the structures a flight event changes; the per-flight passenger maps stay shared since events only replace them
+	private DARMSModel flightEventVariant(){
+		DARMSModel variant = new DARMSModel(this);
+		
+		variant.flights = new ArrayList<Flight>(flights);
+		variant.flightMap = new HashMap<Integer, List<Flight>>();
+		
+		for(int t : flightMap.keySet()){
+			variant.flightMap.put(t, new ArrayList<Flight>(flightMap.get(t)));
+		}
+		
+		variant.passengerDistribution = passengerDistribution.copy();
+		variant.payoffStructure = payoffStructure.copy();
+		
+		return variant;
+	}
+	
+	private Set<Integer> removeFromFlightMap(Flight f){
+		Set<Integer> removedTimeWindows = new HashSet<Integer>();
+		
+		for(int t : f.getTemporalPassengerDistribution().keySet()){
+			if(flightMap.containsKey(t) && flightMap.get(t).remove(f)){
+				removedTimeWindows.add(t);
+			}
 			
-			for(int t : temporalPassengerDistribution.keySet()){
-				for(RiskCategory c : temporalPassengerDistribution.get(t).keySet()){
-					if(temporalPassengerDistribution.get(t).get(c) > 0){
-						if(!flightMap.containsKey(t)){
-							flightMap.put(t, new ArrayList<Flight>());
-						}
-							
-						flightMap.get(t).add(f);
-						break;
-					}
-				}
+			passengerDistribution.remove(t, f);
+		}
+		
+		return removedTimeWindows;
+	}
+	
+	private Set<Integer> addToFlightMap(Flight f){
+		Map<Integer, Map<RiskCategory, Integer>> temporalPassengerDistribution = calculateTemporalPassengerDistribution(f);
+		
+		f.setTemporalPassengerDistribution(temporalPassengerDistribution);
+		
+		for(int t : temporalPassengerDistribution.keySet()){
+			if(!flightMap.containsKey(t)){
+				flightMap.put(t, new ArrayList<Flight>());
 			}
+			
+			flightMap.get(t).add(f);
+			
+			passengerDistribution.put(t, f, new HashMap<RiskCategory, Integer>(temporalPassengerDistribution.get(t)));
 		}
+		
+		return new HashSet<Integer>(temporalPassengerDistribution.keySet());
 	}
 	
 	public List<ScreeningOperation> getScreeningOperations(){
@@ -239,6 +581,22 @@ public class DARMSModel {
 		
 	}
 	
+	public String getFineDistribution(){
+		return fineDist;
+	}
+	
+	public double getFineMin(){
+		return fineMin;
+	}
+	
+	public double getFineMax(){
+		return fineMax;
+	}
+	
+	public int getNumberTests(){
+		return numberTests;
+	}
+	
 	public List<Flight> getFlights(){
 		return flights;
 	}
@@ -262,8 +620,7 @@ public class DARMSModel {
 	public List<Integer> getTimeWindows(){
 		// List<Integer> tw = new ArrayList<Integer>(flightMap.keySet());
 		
-		Collections.sort(timeWindows);
-		
+		// Built in ascending order by the constructor; not sorted here since variants share the list across threads
 		return timeWindows;
 	}
 	
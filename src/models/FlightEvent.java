@@ -0,0 +1,69 @@
+package models;
+
+import java.util.Set;
+
+public class FlightEvent {
+	public static enum Type {DELAY, CANCEL, ADD};
+	
+	private Type type;
+	private Flight previousFlight;
+	private Flight flight;
+	private Set<Integer> previousTimeWindows;
+	private Set<Integer> currentTimeWindows;
+	private DARMSModel baseModel;
+	private DARMSModel model;
+	private long startTime;
+	
+	public FlightEvent(Type type, Flight previousFlight, Flight flight, Set<Integer> previousTimeWindows, Set<Integer> currentTimeWindows, DARMSModel baseModel, DARMSModel model, long startTime){
+		this.type = type;
+		this.previousFlight = previousFlight;
+		this.flight = flight;
+		this.previousTimeWindows = previousTimeWindows;
+		this.currentTimeWindows = currentTimeWindows;
+		this.baseModel = baseModel;
+		this.model = model;
+		this.startTime = startTime;
+	}
+	
+	public Type getType(){
+		return type;
+	}
+	
+	// The flight as it was before the event; differs from getFlight() only for a delay, which replaces the flight by a copy
+	public Flight getPreviousFlight(){
+		return previousFlight;
+	}
+	
+	public Flight getFlight(){
+		return flight;
+	}
+	
+	// Time windows the flight had passengers in before the event
+	public Set<Integer> getPreviousTimeWindows(){
+		return previousTimeWindows;
+	}
+	
+	// Time windows the flight has passengers in after the event
+	public Set<Integer> getCurrentTimeWindows(){
+		return currentTimeWindows;
+	}
+	
+	// The model the event was applied to, which is left unchanged
+	public DARMSModel getBaseModel(){
+		return baseModel;
+	}
+	
+	// The copy-on-write variant with the event applied
+	public DARMSModel getModel(){
+		return model;
+	}
+	
+	// System.nanoTime() when the event reached the model
+	public long getStartTime(){
+		return startTime;
+	}
+	
+	public String toString(){
+		return type + " " + flight;
+	}
+}
@@ -1,4 +1,5 @@
 package models;
+import java.util.HashMap;
 import java.util.Map;
 
 
@@ -38,6 +39,31 @@ public class PassengerDistribution implements Comparable<PassengerDistribution>{
 		return distribution.get(t).get(f).get(c);
 	}
 	
+	public void put(Integer t, Flight f, Map<RiskCategory, Integer> passengers){
+		if(!distribution.containsKey(t)){
+			distribution.put(t, new HashMap<Flight, Map<RiskCategory, Integer>>());
+		}
+		
+		distribution.get(t).put(f, passengers);
+	}
+	
+	public void remove(Integer t, Flight f){
+		if(distribution.containsKey(t)){
+			distribution.get(t).remove(f);
+		}
+	}
+	
+	// Copy whose windows can be changed by put and remove without touching this distribution
+	public PassengerDistribution copy(){
+		Map<Integer, Map<Flight, Map<RiskCategory, Integer>>> copy = new HashMap<Integer, Map<Flight, Map<RiskCategory, Integer>>>();
+		
+		for(int t : distribution.keySet()){
+			copy.put(t, new HashMap<Flight, Map<RiskCategory, Integer>>(distribution.get(t)));
+		}
+		
+		return new PassengerDistribution(copy);
+	}
+	
 	public int compareTo(PassengerDistribution d){
 		if(d.id() == this.id()){
 			return 0;
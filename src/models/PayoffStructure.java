@@ -1,5 +1,6 @@
 package models;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -47,6 +48,17 @@ public class PayoffStructure {
 		return attUncovMap.get(f);
 	}
 	
+	public void put(Flight f, int defCov, int defUncov, int attCov, int attUncov){
+		defCovMap.put(f, defCov);
+		defUncovMap.put(f, defUncov);
+		attCovMap.put(f, attCov);
+		attUncovMap.put(f, attUncov);
+	}
+	
+	public PayoffStructure copy(){
+		return new PayoffStructure(new HashMap<Flight, Integer>(defCovMap), new HashMap<Flight, Integer>(defUncovMap), new HashMap<Flight, Integer>(attCovMap), new HashMap<Flight, Integer>(attUncovMap));
+	}
+	
 	public int id(){
 		return id;
 	}
@@ -19,17 +19,31 @@ public class ResourceFines {
 		this.trials = t;
 	}
 	
+	public ResourceFines(int t, Map<Integer, Map<ScreeningResource, Double>> fines){
+		this.trials = t;
+		this.fines = fines;
+	}
+	
 	public void generateFines( String dist, double min, double max, int numTrials, int thisTest, DARMSModel model) throws Exception{
-		// dist: random -- all numbers are random
-		Random dice = new Random();
 		// this.trials = numTrials;
 		this.resources = model.getScreeningResources().keySet();
 		this.twindows = model.getTimeWindows();
 		
-		Map<Integer, Map<ScreeningResource, Double>> f1 = new HashMap<Integer, Map<ScreeningResource, Double>>();
+		Map<Integer, Map<ScreeningResource, Double>> f1 = calculateFines(dist, min, max, numTrials, thisTest, model, new Random());
 		
+		if( f1 != null ){
+			this.fines = f1;
+			this.writeToFile();
+		}
+	}
+	
+	// The fines of generateFines without the ResourceFines<trials>.csv write, drawn from the given generator so model
+	// variants built concurrently neither race on the file nor differ between runs. Null for an unknown distribution
+	public static Map<Integer, Map<ScreeningResource, Double>> calculateFines( String dist, double min, double max, int numTrials, int thisTest, DARMSModel model, Random dice){
+		// dist: random -- all numbers are random
 		if( dist.equals("random") ){
-
+			Map<Integer, Map<ScreeningResource, Double>> f1 = new HashMap<Integer, Map<ScreeningResource, Double>>();
+			
 			for( int t : model.getTimeWindows() ){
 				f1.put(t, new  HashMap<ScreeningResource, Double>() );
 				for( ScreeningResource r : model.getScreeningResources().keySet() ){
@@ -37,11 +51,12 @@ public class ResourceFines {
 					f1.get(t).put(r, cost);
 				}
 			}
-			this.fines = f1;
-			this.writeToFile();
+			
+			return f1;
 		}
 		
 		if( dist.equals("uniform")){
+			Map<Integer, Map<ScreeningResource, Double>> f1 = new HashMap<Integer, Map<ScreeningResource, Double>>();
 			
 			for( int t : model.getTimeWindows() ){
 				f1.put(t, new  HashMap<ScreeningResource, Double>() );
@@ -50,9 +65,11 @@ public class ResourceFines {
 					f1.get(t).put(r, cost);
 				}
 			}
-			this.fines = f1;
-			this.writeToFile();
-		}			
+			
+			return f1;
+		}
+		
+		return null;
 	}
 
 	private void writeToFile() throws Exception {
@@ -73,4 +90,8 @@ public class ResourceFines {
 	public Map<Integer, Map<ScreeningResource, Double>> getFines() {
 		return this.fines;
 	}
+	
+	public int getTrials() {
+		return this.trials;
+	}
 }
@@ -0,0 +1,162 @@
+package solvers;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import models.AdversaryDistribution;
+import models.DARMSModel;
+import models.RiskCategory;
+import utilities.DARMSHelper;
+
+public class DARMSAdversaryDistributionSweep {
+	private DARMSModel model;
+	private int numWorkers;
+	
+	private AdversaryDistribution defaultDistribution;
+	private Map<RiskCategory, Double> defaultDefenderPayoffs;
+	
+	private List<RiskCategory> riskCategories;
+	
+	private int samplesSolved;
+	private double runtime;
+	
+	public DARMSAdversaryDistributionSweep(DARMSModel model, int numWorkers){
+		this.model = model;
+		this.numWorkers = numWorkers;
+		
+		riskCategories = new ArrayList<RiskCategory>(model.getAdversaryDistribution().keySet());
+		Collections.sort(riskCategories);
+	}
+	
+	// Each worker owns one LP for the whole sweep; a sample only rewrites the objective coefficients of the d_c variables
+	public void run(final List<AdversaryDistribution> samples, String filename) throws Exception{
+		long start = System.currentTimeMillis();
+		
+		DARMSMarginalSolver defaultSolver = new DARMSMarginalSolver(model, true, false, true, false);
+		
+		try{
+			defaultSolver.solve();
+			
+			defaultDistribution = new AdversaryDistribution(model.getAdversaryDistribution());
+			defaultDefenderPayoffs = defaultSolver.getDefenderPayoffs();
+		}
+		finally{
+			defaultSolver.end();
+		}
+		
+		final BufferedWriter writer = new BufferedWriter(new FileWriter(new File(filename)));
+		
+		String line = "AdversaryDistribution, Distance, RoundedDistance, AbsoluteRegret, RelativeRegret";
+		
+		for(RiskCategory c : riskCategories){
+			line += ", " + c;
+		}
+		
+		writer.write(line);
+		
+		final AtomicInteger nextSample = new AtomicInteger(0);
+		final AtomicInteger solved = new AtomicInteger(0);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+		
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		
+		try{
+			for(int i = 0; i < numWorkers; i++){
+				futures.add(executor.submit(new Callable<Void>(){
+					public Void call() throws Exception{
+						DARMSMarginalSolver solver = null;
+						
+						int index;
+						
+						try{
+							solver = new DARMSMarginalSolver(model, true, false, true, false);
+							
+							solver.setThreads(1);
+							
+							while((index = nextSample.getAndIncrement()) < samples.size()){
+								AdversaryDistribution ad = samples.get(index);
+								
+								solver.setAdversaryDistribution(ad.distribution());
+								solver.resolve();
+								
+								String result = formatResult(ad, solver.getDefenderPayoff());
+								
+								synchronized(writer){
+									writer.write(result);
+									writer.flush();
+								}
+								
+								solved.incrementAndGet();
+							}
+						}
+						finally{
+							if(solver != null){
+								solver.end();
+							}
+						}
+						
+						return null;
+					}
+				}));
+			}
+			
+			for(Future<Void> future : futures){
+				future.get();
+			}
+		}
+		finally{
+			executor.shutdownNow();
+			writer.close();
+		}
+		
+		samplesSolved = solved.get();
+		runtime = (System.currentTimeMillis() - start) / 1000.0;
+	}
+	
+	private String formatResult(AdversaryDistribution ad, double optimalDefenderPayoff){
+		double defenderPayoff = 0.0;
+		
+		for(RiskCategory c : riskCategories){
+			defenderPayoff += ad.get(c) * defaultDefenderPayoffs.get(c);
+		}
+		
+		double absoluteRegret = optimalDefenderPayoff - defenderPayoff;
+		
+		double relativeRegret = Math.abs(absoluteRegret / defenderPayoff);
+		
+		double distance = DARMSHelper.calculateSquaredDistance(defaultDistribution, ad);
+		
+		double roundedDistance = ((int)(distance * 10) + 1) / 10.0;
+		
+		String line = "\n" + ad + ", " + distance + ", " + roundedDistance + ", " + absoluteRegret + ", " + relativeRegret;
+		
+		for(RiskCategory c : riskCategories){
+			line += ", " + ad.get(c);
+		}
+		
+		return line;
+	}
+	
+	public int getSamplesSolved(){
+		return samplesSolved;
+	}
+	
+	public double getRuntime(){
+		return runtime;
+	}
+	
+	public double getSamplesPerSecond(){
+		return samplesSolved / runtime;
+	}
+}
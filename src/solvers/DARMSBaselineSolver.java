@@ -155,10 +155,12 @@ public class DARMSBaselineSolver{
 						IloNumExpr expr = xMap.get(t).get(c).get(f).get(m);
 							
 						for(ScreeningOperation o : model.getScreeningOperations()){
+							double effectiveness = model.effectiveness(o, c, m);
+							
 							for(PureStrategy p : pureStrategyList){
 								double prob = p.get(t, f, c, o) / (double)distribution.get(t).get(c);
 								
-								expr = cplex.sum(expr, cplex.prod(pMap.get(p), -o.effectiveness(c, m) * prob));
+								expr = cplex.sum(expr, cplex.prod(pMap.get(p), -effectiveness * prob));
 							}
 						}
 							
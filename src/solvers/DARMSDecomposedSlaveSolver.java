@@ -15,10 +15,12 @@ import models.RiskCategory;
 import models.ScreeningOperation;
 
 import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
 
 public class DARMSDecomposedSlaveSolver implements DARMSSlave{
 	private DARMSModel model;
 	private Map<Integer, DARMSSlaveSolver> slaveSolverMap;
+	private double timeLimit = 1e75;
 	
 	public DARMSDecomposedSlaveSolver(DARMSModel model, boolean betterResponse) throws Exception{
 		this.model = model;
@@ -33,8 +35,23 @@ public class DARMSDecomposedSlaveSolver implements DARMSSlave{
 		}
 	}
 	
+	// The windows are solved one after another, so each one gets what is left of the limit
+	public void setTimeLimit(double seconds){
+		this.timeLimit = seconds;
+	}
+	
+	// All windows share the aborter, so an abort also stops the windows that have not been solved yet
+	public void setAborter(IloCplex.Aborter aborter) throws IloException{
+		for(DARMSSlaveSolver slaveSolver : slaveSolverMap.values()){
+			slaveSolver.setAborter(aborter);
+		}
+	}
+	
 	public void solve() throws Exception{
+		long start = System.currentTimeMillis();
+		
 		for(int t : slaveSolverMap.keySet()){
+			slaveSolverMap.get(t).setTimeLimit(Math.max(timeLimit - (System.currentTimeMillis() - start) / 1000.0, 0.0));
 			slaveSolverMap.get(t).solve();
 		}
 	}
@@ -0,0 +1,714 @@
+package solvers;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import models.AttackMethod;
+import models.DARMSModel;
+import models.Flight;
+import models.PassengerDistribution;
+import models.PayoffStructure;
+import models.PostScreeningResource;
+import models.RiskCategory;
+import models.ScreeningOperation;
+import models.ScreeningResource;
+import ilog.concert.IloException;
+import ilog.concert.IloNumExpr;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloNumVarType;
+import ilog.concert.IloObjective;
+import ilog.cplex.IloCplex;
+
+/*
+ * Zero-sum marginal problem decomposed by time window. The overflow carried from window t into window t + 1 is split into
+ * an outgoing copy (window t) and an incoming copy (window t + 1) linked by ovIn >= ovOut with multipliers mu[t][r] >= 0,
+ * and d_c is split into one copy per window with multipliers lambda[c][t] on the simplex scaled by p_c. Every window is
+ * then an independent LP solved in parallel; the multipliers are updated by projected subgradient steps with Polyak step sizes.
+ */
+public class DARMSLagrangianSolver{
+	private static final int MM = 1000000000;
+	
+	private DARMSModel model;
+	private PassengerDistribution passengerDistribution;
+	private PayoffStructure payoffStructure;
+	
+	private List<Integer> timeWindows;
+	private List<RiskCategory> riskCategories;
+	private List<ScreeningResource> screeningResources;
+	
+	private List<WindowProblem> windowProblems;
+	
+	private Map<RiskCategory, Map<Integer, Double>> lambda;
+	private Map<Integer, Map<ScreeningResource, Double>> mu;
+	
+	private int numThreads;
+	private int maxIterations;
+	private int repairFrequency;
+	private double gapTolerance;
+	
+	private double upperBound;
+	private double lowerBound;
+	private int iterations;
+	private double runtime;
+	
+	private Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> defenderScreeningStrategy;
+	private Map<Integer, Map<ScreeningResource, Double>> overflow;
+	
+	private List<double[]> convergence;
+	
+	public DARMSLagrangianSolver(DARMSModel model, int numThreads) throws Exception{
+		this.model = model;
+		this.passengerDistribution = model.getPassengerDistribution();
+		this.payoffStructure = model.getPayoffStructure();
+		this.numThreads = numThreads;
+		this.maxIterations = 200;
+		this.repairFrequency = 10;
+		this.gapTolerance = 1e-3;
+		
+		for(Flight f : model.getFlights()){
+			if(payoffStructure.defCov(f) != -payoffStructure.attCov(f) || payoffStructure.defUncov(f) != -payoffStructure.attUncov(f)){
+				throw new Exception("Attempting to use zero-sum formulation on a non-zero-sum game.");
+			}
+		}
+		
+		timeWindows = model.getTimeWindows();
+		riskCategories = new ArrayList<RiskCategory>(model.getAdversaryDistribution().keySet());
+		screeningResources = new ArrayList<ScreeningResource>(model.getScreeningResources().keySet());
+	}
+	
+	public void setMaxIterations(int maxIterations){
+		this.maxIterations = maxIterations;
+	}
+	
+	public void setRepairFrequency(int repairFrequency){
+		this.repairFrequency = repairFrequency;
+	}
+	
+	public void setGapTolerance(double gapTolerance){
+		this.gapTolerance = gapTolerance;
+	}
+	
+	public void solve() throws Exception{
+		long start = System.currentTimeMillis();
+		
+		upperBound = Double.POSITIVE_INFINITY;
+		lowerBound = Double.NEGATIVE_INFINITY;
+		iterations = 0;
+		convergence = new ArrayList<double[]>();
+		
+		initMultipliers();
+		
+		windowProblems = new ArrayList<WindowProblem>();
+		
+		double cumulativePassengers = 0.0;
+		
+		for(int i = 0; i < timeWindows.size(); i++){
+			int t = timeWindows.get(i);
+			
+			double incomingBound = cumulativePassengers;
+			
+			for(Flight f : model.getFlights(t)){
+				for(RiskCategory c : riskCategories){
+					cumulativePassengers += passengerDistribution.get(t, f, c);
+				}
+			}
+			
+			windowProblems.add(new WindowProblem(t, i > 0, i < timeWindows.size() - 1, incomingBound, cumulativePassengers));
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, numThreads));
+		
+		try{
+			double stepScale = 2.0;
+			int nonImproving = 0;
+			
+			while(iterations < maxIterations){
+				setWindowObjectives();
+				
+				double dualValue = solveWindows(executor);
+				
+				if(dualValue < upperBound - DARMSModel.EPSILON){
+					upperBound = dualValue;
+					nonImproving = 0;
+				}
+				else if(++nonImproving >= 5){
+					stepScale /= 2.0;
+					nonImproving = 0;
+				}
+				
+				// Subgradient of the dual function: ovIn - ovOut for mu, the per-window category payoff for lambda. Taken before the
+				// primal repair, which re-solves the window LPs
+				Map<Integer, Map<ScreeningResource, Double>> muGradient = new HashMap<Integer, Map<ScreeningResource, Double>>();
+				Map<RiskCategory, Map<Integer, Double>> lambdaGradient = new HashMap<RiskCategory, Map<Integer, Double>>();
+				
+				double norm = 0.0;
+				
+				for(int i = 0; i < timeWindows.size() - 1; i++){
+					int t = timeWindows.get(i);
+					
+					muGradient.put(t, new HashMap<ScreeningResource, Double>());
+					
+					for(ScreeningResource r : screeningResources){
+						double g = windowProblems.get(i + 1).getIncomingOverflow(r) - windowProblems.get(i).getOutgoingOverflow(r);
+						
+						muGradient.get(t).put(r, g);
+						norm += g * g;
+					}
+				}
+				
+				for(RiskCategory c : riskCategories){
+					lambdaGradient.put(c, new HashMap<Integer, Double>());
+					
+					double mean = 0.0;
+					
+					for(int i = 0; i < timeWindows.size(); i++){
+						mean += windowProblems.get(i).getCategoryPayoff(c) / timeWindows.size();
+					}
+					
+					for(int i = 0; i < timeWindows.size(); i++){
+						double g = windowProblems.get(i).getCategoryPayoff(c);
+						
+						lambdaGradient.get(c).put(timeWindows.get(i), g);
+						norm += (g - mean) * (g - mean);
+					}
+				}
+				
+				if(iterations % repairFrequency == 0){
+					repairPrimal();
+				}
+				
+				iterations++;
+				
+				convergence.add(new double[]{iterations, dualValue, upperBound, lowerBound, getDualityGap()});
+				
+				if(getDualityGap() <= gapTolerance){
+					break;
+				}
+				
+				if(norm <= DARMSModel.EPSILON){
+					break;
+				}
+				
+				double target = (lowerBound > Double.NEGATIVE_INFINITY) ? lowerBound : upperBound - 0.05 * Math.max(1.0, Math.abs(upperBound));
+				double step = stepScale * Math.max(dualValue - target, DARMSModel.EPSILON) / norm;
+				
+				for(int t : muGradient.keySet()){
+					for(ScreeningResource r : screeningResources){
+						mu.get(t).put(r, Math.max(0.0, mu.get(t).get(r) - step * muGradient.get(t).get(r)));
+					}
+				}
+				
+				for(RiskCategory c : riskCategories){
+					double[] point = new double[timeWindows.size()];
+					
+					for(int i = 0; i < timeWindows.size(); i++){
+						int t = timeWindows.get(i);
+						
+						point[i] = lambda.get(c).get(t) - step * lambdaGradient.get(c).get(t);
+					}
+					
+					point = projectSimplex(point, model.getAdversaryDistribution().get(c));
+					
+					for(int i = 0; i < timeWindows.size(); i++){
+						lambda.get(c).put(timeWindows.get(i), point[i]);
+					}
+				}
+			}
+			
+			setWindowObjectives();
+			repairPrimal();
+		}
+		finally{
+			executor.shutdownNow();
+			
+			for(WindowProblem w : windowProblems){
+				w.end();
+			}
+		}
+		
+		runtime = (System.currentTimeMillis() - start) / 1000.0;
+	}
+	
+	private void initMultipliers(){
+		lambda = new HashMap<RiskCategory, Map<Integer, Double>>();
+		mu = new HashMap<Integer, Map<ScreeningResource, Double>>();
+		
+		for(RiskCategory c : riskCategories){
+			lambda.put(c, new HashMap<Integer, Double>());
+			
+			for(int t : timeWindows){
+				lambda.get(c).put(t, model.getAdversaryDistribution().get(c) / timeWindows.size());
+			}
+		}
+		
+		for(int i = 0; i < timeWindows.size() - 1; i++){
+			int t = timeWindows.get(i);
+			
+			mu.put(t, new HashMap<ScreeningResource, Double>());
+			
+			for(ScreeningResource r : screeningResources){
+				mu.get(t).put(r, model.getResourceFines().get(t).get(r));
+			}
+		}
+	}
+	
+	private void setWindowObjectives() throws IloException{
+		for(int i = 0; i < timeWindows.size(); i++){
+			int t = timeWindows.get(i);
+			
+			Map<ScreeningResource, Double> incomingPrice = (i > 0) ? mu.get(timeWindows.get(i - 1)) : null;
+			Map<ScreeningResource, Double> outgoingPrice = (i < timeWindows.size() - 1) ? mu.get(t) : null;
+			
+			windowProblems.get(i).setObjective(incomingPrice, outgoingPrice);
+		}
+	}
+	
+	private double solveWindows(ExecutorService executor) throws Exception{
+		List<Future<Double>> futures = new ArrayList<Future<Double>>();
+		
+		for(final WindowProblem w : windowProblems){
+			futures.add(executor.submit(new Callable<Double>(){
+				public Double call() throws Exception{
+					return w.solve();
+				}
+			}));
+		}
+		
+		double dualValue = 0.0;
+		
+		for(Future<Double> future : futures){
+			dualValue += future.get();
+		}
+		
+		for(WindowProblem w : windowProblems){
+			if(!w.isFeasible()){
+				throw new Exception("Infeasible. Capacity constraints exceeded. Time Window: " + w.t);
+			}
+		}
+		
+		return dualValue;
+	}
+	
+	// Solves the windows in order with the incoming overflow fixed to the previous window's outgoing overflow, which yields a
+	// strategy feasible for the coupled problem and therefore a lower bound
+	private void repairPrimal() throws Exception{
+		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> strategy = new HashMap<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>>();
+		Map<Integer, Map<ScreeningResource, Double>> repairedOverflow = new HashMap<Integer, Map<ScreeningResource, Double>>();
+		Map<RiskCategory, Double> worstPayoffs = new HashMap<RiskCategory, Double>();
+		
+		double fines = 0.0;
+		
+		Map<ScreeningResource, Double> carried = null;
+		
+		try{
+			for(int i = 0; i < timeWindows.size(); i++){
+				int t = timeWindows.get(i);
+				WindowProblem w = windowProblems.get(i);
+				
+				if(carried != null){
+					w.fixIncomingOverflow(carried);
+				}
+				
+				w.solve();
+				
+				if(!w.isFeasible()){
+					return;
+				}
+				
+				strategy.put(t, w.getScreeningStrategy());
+				
+				for(RiskCategory c : riskCategories){
+					double payoff = w.getCategoryPayoff(c);
+					
+					if(!worstPayoffs.containsKey(c) || payoff < worstPayoffs.get(c)){
+						worstPayoffs.put(c, payoff);
+					}
+				}
+				
+				if(i < timeWindows.size() - 1){
+					carried = new HashMap<ScreeningResource, Double>();
+					
+					for(ScreeningResource r : screeningResources){
+						double ov = w.getOutgoingOverflow(r);
+						
+						carried.put(r, ov);
+						fines += ov * model.getResourceFines().get(t).get(r);
+					}
+					
+					repairedOverflow.put(t, carried);
+				}
+			}
+		}
+		finally{
+			for(WindowProblem w : windowProblems){
+				w.releaseIncomingOverflow();
+			}
+		}
+		
+		double value = -fines;
+		
+		for(RiskCategory c : riskCategories){
+			value += model.getAdversaryDistribution().get(c) * worstPayoffs.get(c);
+		}
+		
+		if(value > lowerBound){
+			lowerBound = value;
+			defenderScreeningStrategy = strategy;
+			overflow = repairedOverflow;
+		}
+	}
+	
+	// Euclidean projection onto {x >= 0, sum x = total}
+	private static double[] projectSimplex(double[] point, double total){
+		double[] sorted = point.clone();
+		
+		Arrays.sort(sorted);
+		
+		double cumulative = 0.0;
+		double theta = 0.0;
+		
+		for(int i = sorted.length - 1; i >= 0; i--){
+			cumulative += sorted[i];
+			
+			double candidate = (cumulative - total) / (sorted.length - i);
+			
+			if(i == 0 || sorted[i - 1] <= candidate){
+				theta = candidate;
+				break;
+			}
+		}
+		
+		double[] projection = new double[point.length];
+		
+		for(int i = 0; i < point.length; i++){
+			projection[i] = Math.max(0.0, point[i] - theta);
+		}
+		
+		return projection;
+	}
+	
+	public double getUpperBound(){
+		return upperBound;
+	}
+	
+	public double getLowerBound(){
+		return lowerBound;
+	}
+	
+	public double getDefenderPayoff(){
+		return lowerBound;
+	}
+	
+	public double getDualityGap(){
+		if(lowerBound == Double.NEGATIVE_INFINITY){
+			return Double.POSITIVE_INFINITY;
+		}
+		
+		return (upperBound - lowerBound) / Math.max(1.0, Math.abs(upperBound));
+	}
+	
+	public int getIterations(){
+		return iterations;
+	}
+	
+	public double getRuntime(){
+		return runtime;
+	}
+	
+	public Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> getDefenderScreeningStrategy(){
+		return defenderScreeningStrategy;
+	}
+	
+	public Map<Integer, Map<ScreeningResource, Double>> getOverflow(){
+		return overflow;
+	}
+	
+	public void writeConvergence(String filename) throws Exception{
+		FileWriter fw = new FileWriter(new File(filename));
+		
+		String line = "Iteration, DualValue, UpperBound, LowerBound, Gap";
+		
+		fw.write(line);
+		
+		for(double[] row : convergence){
+			line = "\n" + (int)row[0] + ", " + row[1] + ", " + row[2] + ", " + row[3] + ", " + row[4];
+			
+			fw.write(line);
+		}
+		
+		fw.close();
+	}
+	
+	private class WindowProblem{
+		private int t;
+		
+		private IloCplex cplex;
+		private IloObjective objective;
+		
+		private Map<Flight, Map<RiskCategory, Map<ScreeningOperation, IloNumVar>>> sMap;
+		private Map<Flight, Map<PostScreeningResource, IloNumVar>> pMap;
+		private Map<RiskCategory, Map<Flight, Map<AttackMethod, IloNumVar>>> xMap;
+		private Map<RiskCategory, IloNumVar> dMap;
+		private Map<ScreeningResource, IloNumVar> ovInMap;
+		private Map<ScreeningResource, IloNumVar> ovOutMap;
+		
+		private double incomingBound;
+		
+		private boolean feasible;
+		private Map<ScreeningResource, Double> incomingOverflow;
+		private Map<ScreeningResource, Double> outgoingOverflow;
+		private Map<RiskCategory, Double> categoryPayoffs;
+		
+		public WindowProblem(int t, boolean incoming, boolean outgoing, double incomingBound, double outgoingBound) throws IloException{
+			this.t = t;
+			this.incomingBound = incomingBound;
+			
+			cplex = new IloCplex();
+			cplex.setName("DARMS-Lagrangian-T" + t);
+			cplex.setParam(IloCplex.IntParam.Threads, 1);
+			cplex.setOut(null);
+			
+			sMap = new HashMap<Flight, Map<RiskCategory, Map<ScreeningOperation, IloNumVar>>>();
+			pMap = new HashMap<Flight, Map<PostScreeningResource, IloNumVar>>();
+			xMap = new HashMap<RiskCategory, Map<Flight, Map<AttackMethod, IloNumVar>>>();
+			dMap = new HashMap<RiskCategory, IloNumVar>();
+			
+			for(Flight f : model.getFlights(t)){
+				sMap.put(f, new HashMap<RiskCategory, Map<ScreeningOperation, IloNumVar>>());
+				pMap.put(f, new HashMap<PostScreeningResource, IloNumVar>());
+				
+				for(RiskCategory c : riskCategories){
+					// Static screening: every flight of the window reuses the variables (and the action row) of the first one
+					if(!model.flightByFlight() && f != model.getFlights(t).get(0)){
+						sMap.get(f).put(c, sMap.get(model.getFlights(t).get(0)).get(c));
+						continue;
+					}
+					
+					sMap.get(f).put(c, new HashMap<ScreeningOperation, IloNumVar>());
+					
+					IloNumExpr expr = cplex.constant(0);
+					
+					for(ScreeningOperation o : model.getScreeningOperations()){
+						IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_t" + t + "_f" +  f.id() + "_c" + c.id() + "_o" + o.getID());
+						
+						sMap.get(f).get(c).put(o, var);
+						expr = cplex.sum(expr, var);
+					}
+					
+					cplex.addEq(expr, 1.0, "ST" + t + "F" + f.id() + "C" + c.id() + "SUM");
+				}
+				
+				for(PostScreeningResource r : model.getPostScreeningResources().keySet()){
+					pMap.get(f).put(r, cplex.numVar(0.0, 1.0, IloNumVarType.Float, "p_t" + t + "_f" +  f.id() + "_r" + r.id()));
+				}
+			}
+			
+			for(PostScreeningResource r : model.getPostScreeningResources().keySet()){
+				IloNumExpr expr = cplex.constant(0);
+				
+				for(Flight f : model.getFlights(t)){
+					expr = cplex.sum(expr, pMap.get(f).get(r));
+				}
+				
+				cplex.addEq(expr, model.getPostScreeningResources().get(r), "PT" + t + "R" + r.id() + "SUM");
+			}
+			
+			if(incoming){
+				ovInMap = new HashMap<ScreeningResource, IloNumVar>();
+				
+				for(ScreeningResource r : screeningResources){
+					ovInMap.put(r, cplex.numVar(0.0, incomingBound, IloNumVarType.Float, "i_t" + t + "_r" + r.id()));
+				}
+			}
+			
+			if(outgoing){
+				ovOutMap = new HashMap<ScreeningResource, IloNumVar>();
+				
+				for(ScreeningResource r : screeningResources){
+					ovOutMap.put(r, cplex.numVar(0.0, outgoingBound, IloNumVarType.Float, "o_t" + t + "_r" + r.id()));
+				}
+			}
+			
+			for(ScreeningResource r : screeningResources){
+				IloNumExpr expr = cplex.constant(0);
+				
+				for(Flight f : model.getFlights(t)){
+					for(RiskCategory c : riskCategories){
+						for(ScreeningOperation o : model.getScreeningOperations()){
+							if(o.getResources().contains(r)){
+								expr = cplex.sum(expr, cplex.prod(sMap.get(f).get(c).get(o), passengerDistribution.get(t, f, c)));
+							}
+						}
+					}
+				}
+				
+				if(incoming){
+					expr = cplex.sum(expr, ovInMap.get(r));
+				}
+				
+				if(outgoing){
+					expr = cplex.sum(expr, cplex.negative(ovOutMap.get(r)));
+				}
+				
+				cplex.addLe(expr, r.capacity() * model.getScreeningResources().get(r), "ST" + t + "R" + r.id() + "OVERFLOW");
+			}
+			
+			for(RiskCategory c : riskCategories){
+				IloNumVar d = cplex.numVar(-MM, MM, IloNumVarType.Float, "d_t" + t + "_c" + c.id());
+				
+				dMap.put(c, d);
+				xMap.put(c, new HashMap<Flight, Map<AttackMethod, IloNumVar>>());
+				
+				for(Flight f : model.getFlights(t)){
+					xMap.get(c).put(f, new HashMap<AttackMethod, IloNumVar>());
+					
+					for(AttackMethod m : model.getAttackMethods()){
+						IloNumVar x = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "x_t" + t + "_c" + c.id() + "_f" + f.id() + "_m" + m.id());
+						
+						xMap.get(c).get(f).put(m, x);
+						
+						IloNumExpr expr = x;
+						
+						for(ScreeningOperation o : model.getScreeningOperations()){
+							expr = cplex.sum(expr, cplex.prod(sMap.get(f).get(c).get(o), -model.effectiveness(o, c, m)));
+						}
+						
+						for(PostScreeningResource p : model.getPostScreeningResources().keySet()){
+							expr = cplex.sum(expr, cplex.prod(pMap.get(f).get(p), -p.effectiveness(m)));
+						}
+						
+						cplex.addEq(expr, 0, "X" + t + "C" + c.id() + "F" + f.id() + "M" + m.id() + "SUM");
+						
+						IloNumExpr payoff = cplex.sum(d, cplex.prod(x, payoffStructure.defUncov(f) - payoffStructure.defCov(f)));
+						
+						cplex.addLe(payoff, payoffStructure.defUncov(f), "DC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id());
+					}
+				}
+			}
+			
+			objective = cplex.addMaximize();
+		}
+		
+		public void setObjective(Map<ScreeningResource, Double> incomingPrice, Map<ScreeningResource, Double> outgoingPrice) throws IloException{
+			IloNumExpr expr = cplex.constant(0);
+			
+			for(RiskCategory c : riskCategories){
+				expr = cplex.sum(expr, cplex.prod(lambda.get(c).get(t), dMap.get(c)));
+			}
+			
+			if(ovInMap != null){
+				for(ScreeningResource r : screeningResources){
+					expr = cplex.sum(expr, cplex.prod(incomingPrice.get(r), ovInMap.get(r)));
+				}
+			}
+			
+			if(ovOutMap != null){
+				for(ScreeningResource r : screeningResources){
+					expr = cplex.sum(expr, cplex.prod(-(model.getResourceFines().get(t).get(r) + outgoingPrice.get(r)), ovOutMap.get(r)));
+				}
+			}
+			
+			objective.setExpr(expr);
+		}
+		
+		public double solve() throws IloException{
+			feasible = cplex.solve() && cplex.isPrimalFeasible();
+			
+			if(!feasible){
+				return Double.POSITIVE_INFINITY;
+			}
+			
+			incomingOverflow = new HashMap<ScreeningResource, Double>();
+			outgoingOverflow = new HashMap<ScreeningResource, Double>();
+			categoryPayoffs = new HashMap<RiskCategory, Double>();
+			
+			for(ScreeningResource r : screeningResources){
+				incomingOverflow.put(r, (ovInMap != null) ? cplex.getValue(ovInMap.get(r)) : 0.0);
+				outgoingOverflow.put(r, (ovOutMap != null) ? cplex.getValue(ovOutMap.get(r)) : 0.0);
+			}
+			
+			// d_c is free when lambda[c][t] is 0, so the payoff is read off the coverage rather than the d variable
+			for(RiskCategory c : riskCategories){
+				double worstPayoff = Double.POSITIVE_INFINITY;
+				
+				for(Flight f : model.getFlights(t)){
+					for(AttackMethod m : model.getAttackMethods()){
+						double x = cplex.getValue(xMap.get(c).get(f).get(m));
+						double payoff = payoffStructure.defUncov(f) + x * (payoffStructure.defCov(f) - payoffStructure.defUncov(f));
+						
+						if(payoff < worstPayoff){
+							worstPayoff = payoff;
+						}
+					}
+				}
+				
+				categoryPayoffs.put(c, worstPayoff);
+			}
+			
+			return cplex.getObjValue();
+		}
+		
+		public boolean isFeasible(){
+			return feasible;
+		}
+		
+		public void fixIncomingOverflow(Map<ScreeningResource, Double> carried) throws IloException{
+			for(ScreeningResource r : screeningResources){
+				ovInMap.get(r).setLB(carried.get(r));
+				ovInMap.get(r).setUB(carried.get(r));
+			}
+		}
+		
+		public void releaseIncomingOverflow() throws IloException{
+			if(ovInMap != null){
+				for(ScreeningResource r : screeningResources){
+					ovInMap.get(r).setLB(0.0);
+					ovInMap.get(r).setUB(incomingBound);
+				}
+			}
+		}
+		
+		public double getIncomingOverflow(ScreeningResource r){
+			return incomingOverflow.get(r);
+		}
+		
+		public double getOutgoingOverflow(ScreeningResource r){
+			return outgoingOverflow.get(r);
+		}
+		
+		public double getCategoryPayoff(RiskCategory c){
+			return categoryPayoffs.get(c);
+		}
+		
+		public Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>> getScreeningStrategy() throws IloException{
+			Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>> strategy = new HashMap<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>();
+			
+			for(Flight f : model.getFlights(t)){
+				strategy.put(f, new HashMap<RiskCategory, Map<ScreeningOperation, Double>>());
+				
+				for(RiskCategory c : riskCategories){
+					strategy.get(f).put(c, new HashMap<ScreeningOperation, Double>());
+					
+					for(ScreeningOperation o : model.getScreeningOperations()){
+						strategy.get(f).get(c).put(o, cplex.getValue(sMap.get(f).get(c).get(o)));
+					}
+				}
+			}
+			
+			return strategy;
+		}
+		
+		public void end(){
+			cplex.end();
+		}
+	}
+}
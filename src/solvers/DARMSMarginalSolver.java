@@ -5,6 +5,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,15 +15,19 @@ import models.AttackMethod;
 import models.DARMSModel;
 import models.PassengerDistribution;
 import models.Flight;
+import models.FlightEvent;
 import models.PayoffStructure;
 import models.PostScreeningResource;
 import models.RiskCategory;
 import models.ScreeningOperation;
 import models.ScreeningResource;
+import utilities.DARMSExporter;
+import utilities.DARMSResultCache;
 import ilog.concert.IloException;
 import ilog.concert.IloNumExpr;
 import ilog.concert.IloNumVar;
 import ilog.concert.IloNumVarType;
+import ilog.concert.IloObjective;
 import ilog.concert.IloRange;
 import ilog.cplex.IloCplex;
 
@@ -49,6 +54,21 @@ public class DARMSMarginalSolver{
 	
 	private List<IloRange> constraints;
 	
+	private Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, IloRange>>>> defenderPayoffRows;
+	private Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, IloRange>>>> adversaryPayoffLowerRows;
+	private Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, IloRange>>>> adversaryPayoffUpperRows;
+	private Map<Integer, Map<Flight, Map<RiskCategory, IloRange>>> screeningActionRows;
+	private Map<Integer, Map<ScreeningResource, IloRange>> screeningThroughputRows;
+	
+	private IloObjective objective;
+	
+	private DARMSExporter exporter = DARMSExporter.getDefault();
+	
+	private Map<Double, Double> fineSweepPayoffs;
+	private Map<Double, Double> fineSweepOverflow;
+	private List<Double> fineSweepBreakpoints;
+	private int fineSweepSolves;
+	
 	private static final int MM = 1000000000;
 	
 	private List<Integer> allTimeWindows;
@@ -58,6 +78,42 @@ public class DARMSMarginalSolver{
 	
 	private PayoffStructure payoffStructure;
 	
+	private Map<RiskCategory, Double> adversaryDistribution;
+	
+	private int threads;
+	
+	// Overflow carried into the first loaded window from windows committed by an earlier rolling-horizon block
+	private Map<ScreeningResource, Double> carriedOverflow;
+	// Whether the last loaded window may push overflow past the end of the block
+	private boolean carryOverflow;
+	
+	private Map<Integer, Map<ScreeningResource, Double>> rollingHorizonOverflow;
+	private RollingHorizonListener rollingHorizonListener;
+	
+	// Windows already screened with their observed check-in counts, oldest first
+	private List<Integer> frozenTimeWindows = new ArrayList<Integer>();
+	private PassengerDistribution plannedPassengerDistribution;
+	private Map<Integer, Map<Flight, Map<RiskCategory, Integer>>> observedPassengers;
+	private Map<Integer, Map<ScreeningResource, Double>> observedOverflow;
+	private Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> frozenScreeningStrategy;
+	private Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>> frozenRiskCategoryCoverage;
+	private double replanRuntime;
+	
+	private DARMSResultCache resultCache;
+	
+	// Budgeted uncertainty on passenger counts: each (f, c) count of a window may rise by robustDeviation times its nominal
+	// value, for at most robustBudget of them per window and resource
+	private double robustDeviation;
+	private double robustBudget;
+	
+	private List<FlightEvent> flightEvents = new ArrayList<FlightEvent>();
+	private List<Boolean> flightEventPatched = new ArrayList<Boolean>();
+	private List<Double> flightEventLatencies = new ArrayList<Double>();
+	
+	public interface RollingHorizonListener{
+		public void committed(int t, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>> screeningStrategy, Map<ScreeningResource, Double> overflow);
+	}
+	
 	private boolean zeroSum;
 	private boolean decomposed;
 	private boolean flightByFlight;
@@ -67,6 +123,7 @@ public class DARMSMarginalSolver{
 		this.model = model;
 		this.passengerDistribution = model.getPassengerDistribution();
 		this.payoffStructure = model.getPayoffStructure();
+		this.adversaryDistribution = model.getAdversaryDistribution();
 		this.zeroSum = zeroSum;
 		this.decomposed = decomposed;
 		this.flightByFlight = flightByFlight;
@@ -85,6 +142,7 @@ public class DARMSMarginalSolver{
 		this.model = model;
 		this.passengerDistribution = passengerDistribution;
 		this.payoffStructure = model.getPayoffStructure();
+		this.adversaryDistribution = model.getAdversaryDistribution();
 		this.zeroSum = zeroSum;
 		this.decomposed = decomposed;
 		this.flightByFlight = flightByFlight;
@@ -103,6 +161,7 @@ public class DARMSMarginalSolver{
 		this.model = model;
 		this.passengerDistribution = model.getPassengerDistribution();
 		this.payoffStructure = payoffStructure;
+		this.adversaryDistribution = model.getAdversaryDistribution();
 		this.zeroSum = zeroSum;
 		this.decomposed = decomposed;
 		this.flightByFlight = flightByFlight;
@@ -135,9 +194,8 @@ public class DARMSMarginalSolver{
 		sMap = new HashMap<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, IloNumVar>>>>();
 		pMap = new HashMap<Integer, Map<Flight, Map<PostScreeningResource, IloNumVar>>>();
 		dMap = new HashMap<RiskCategory, IloNumVar>();
-		xMap = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, IloNumVar>>>>();
-
 		if(!zeroSum){
+			xMap = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, IloNumVar>>>>();
 			aMap = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, IloNumVar>>>>();
 			kMap = new HashMap<RiskCategory, IloNumVar>();
 		}
@@ -148,6 +206,10 @@ public class DARMSMarginalSolver{
 		cplex.setParam(IloCplex.IntParam.BarCrossAlg, IloCplex.Algorithm.None);
 		cplex.setOut(null);
 		
+		if(threads > 0){
+			cplex.setParam(IloCplex.IntParam.Threads, threads);
+		}
+		
 		this.currentTimeWindows = timeWindows;
 		
 		initVars();
@@ -158,9 +220,13 @@ public class DARMSMarginalSolver{
 	private void initVars() throws IloException{
 		List<IloNumVar> varList = new ArrayList<IloNumVar>();
 		
+		// Static screening shares one s variable per (t, c, o) among all flights of a window, naive screening one per (t, o)
+		// among all flights and categories; the shared variable is substituted into every row instead of adding equality rows
 		for(int t : currentTimeWindows){
 			sMap.put(t, new HashMap<Flight, Map<RiskCategory, Map<ScreeningOperation, IloNumVar>>>());
 			
+			Map<RiskCategory, Map<ScreeningOperation, IloNumVar>> sharedVars = new HashMap<RiskCategory, Map<ScreeningOperation, IloNumVar>>();
+			
 			for(Flight f : model.getFlights(t)){
 				sMap.get(t).put(f, new HashMap<RiskCategory, Map<ScreeningOperation, IloNumVar>>());
 				
@@ -168,10 +234,30 @@ public class DARMSMarginalSolver{
 					sMap.get(t).get(f).put(c, new HashMap<ScreeningOperation, IloNumVar>());
 					
 					for(ScreeningOperation o : model.getScreeningOperations()){
-						IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_t" + t + "_f" +  f.id() + "_c" + c.id() + "_o" + o.getID());
-					
+						IloNumVar var;
+						
+						if(flightByFlight){
+							var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_t" + t + "_f" +  f.id() + "_c" + c.id() + "_o" + o.getID());
+							varList.add(var);
+						}
+						else{
+							RiskCategory sharedCategory = naive ? null : c;
+							
+							if(!sharedVars.containsKey(sharedCategory)){
+								sharedVars.put(sharedCategory, new HashMap<ScreeningOperation, IloNumVar>());
+							}
+							
+							if(!sharedVars.get(sharedCategory).containsKey(o)){
+								String name = naive ? "s_t" + t + "_o" + o.getID() : "s_t" + t + "_c" + c.id() + "_o" + o.getID();
+								
+								sharedVars.get(sharedCategory).put(o, cplex.numVar(0.0, 1.0, IloNumVarType.Float, name));
+								varList.add(sharedVars.get(sharedCategory).get(o));
+							}
+							
+							var = sharedVars.get(sharedCategory).get(o);
+						}
+						
 						sMap.get(t).get(f).get(c).put(o, var);
-						varList.add(var);
 					}
 				}
 			}
@@ -179,7 +265,7 @@ public class DARMSMarginalSolver{
 		// ADDITION: Initialize overflow variables
 		// For all the time windows but the last...
 		
-		for(int i = 0; i < currentTimeWindows.size() - 1; i++ ){
+		for(int i = 0; i < currentTimeWindows.size() - (carryOverflow ? 0 : 1); i++ ){
 			int t = currentTimeWindows.get(i);
 			
 			// ...Create a map of resources to overflow value...
@@ -210,26 +296,27 @@ public class DARMSMarginalSolver{
 			}
 		}
 		
-		for(int t : currentTimeWindows){
-			xMap.put(t, new HashMap<RiskCategory, Map<Flight, Map<AttackMethod, IloNumVar>>>());
-			
-			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
-				xMap.get(t).put(c, new HashMap<Flight, Map<AttackMethod, IloNumVar>>());
+		// The zero-sum LP folds coverage straight into the payoff rows, so x is only needed alongside the attacker's binaries
+		if(!zeroSum){
+			for(int t : currentTimeWindows){
+				xMap.put(t, new HashMap<RiskCategory, Map<Flight, Map<AttackMethod, IloNumVar>>>());
 				
-				for(Flight f : model.getFlights(t)){
-					xMap.get(t).get(c).put(f, new HashMap<AttackMethod, IloNumVar>());
+				for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+					xMap.get(t).put(c, new HashMap<Flight, Map<AttackMethod, IloNumVar>>());
 					
-					for(AttackMethod m : model.getAttackMethods()){
-						IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "x_t" + t + "_c" + c.id() + "_f" + f.id() + "_m" + m.id());
+					for(Flight f : model.getFlights(t)){
+						xMap.get(t).get(c).put(f, new HashMap<AttackMethod, IloNumVar>());
 						
-						xMap.get(t).get(c).get(f).put(m, var);
-						varList.add(var);
+						for(AttackMethod m : model.getAttackMethods()){
+							IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "x_t" + t + "_c" + c.id() + "_f" + f.id() + "_m" + m.id());
+							
+							xMap.get(t).get(c).get(f).put(m, var);
+							varList.add(var);
+						}
 					}
 				}
 			}
-		}
-		
-		if(!zeroSum){
+			
 			for(int t : currentTimeWindows){
 				aMap.put(t, new HashMap<RiskCategory, Map<Flight, Map<AttackMethod, IloNumVar>>>());
 				
@@ -277,35 +364,24 @@ public class DARMSMarginalSolver{
 		sumDefenderScreeningActionRow();
 		sumDefenderPostScreeningActionRow();
 		sumDefenderScreeningThroughputRow();
-		sumDefenderCoverageRow();
 		setMarginalBoundRow();
 		
 		if(zeroSum){
 			setZeroSumDefenderPayoffRow();
 		}
 		else{
+			sumDefenderCoverageRow();
 			setGeneralSumDefenderPayoffRow();
 			setAdversaryPayoffRow();
 			sumAdversaryActionRow();
 		}
 		
-		if(!flightByFlight){
-			if(naive){
-				setNaiveScreening();
-			}
-			else{
-				setStaticScreening();
-			}
-		}
-		
 		IloRange[] c = new IloRange[constraints.size()];
 
 		cplex.add(constraints.toArray(c));
 	}
 	
 	private void initObjective() throws IloException{
-		Map<RiskCategory, Double> adversaryDistribution = model.getAdversaryDistribution();
-		
 		IloNumExpr expr = cplex.constant(0);
 		
 		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
@@ -313,14 +389,14 @@ public class DARMSMarginalSolver{
 		}
 		
 		// ADDITION: subtract fine times overflow from obj func for all the time windows but the last
-		for(int i = 0; i < currentTimeWindows.size() - 1; i++ ){
+		for(int i = 0; i < currentTimeWindows.size() - (carryOverflow ? 0 : 1); i++ ){
 			int t = currentTimeWindows.get(i);
 			for(ScreeningResource r : model.getScreeningResources().keySet()){
 				expr = cplex.sum(expr, cplex.negative(cplex.prod(ovMap.get(t).get(r), model.getResourceFines().get(t).get(r))));
 			}
 		}
 		
-		cplex.addMaximize(expr);
+		objective = cplex.addMaximize(expr);
 	}
 	
 	public void solve() throws Exception{
@@ -330,6 +406,30 @@ public class DARMSMarginalSolver{
 		adversaryPayoffs = new HashMap<RiskCategory, Double>();
 		adversaryStrategies = new HashMap<RiskCategory, Map<Integer, Map<Flight, AttackMethod>>>();
 		
+		String cacheKey = null;
+		
+		// Only a plain solve of the full horizon is cached; marginal bounds, carried overflow and frozen windows change the LP
+		if(resultCache != null && marginalBounds.isEmpty() && carriedOverflow == null && frozenTimeWindows.isEmpty()){
+			cacheKey = DARMSResultCache.fingerprint(model, passengerDistribution, payoffStructure, adversaryDistribution, cacheSettings());
+			
+			DARMSResultCache.Result result = resultCache.get(cacheKey, model);
+			
+			if(result != null){
+				// Drop any LP of an earlier solve so nothing reads stale values from it
+				end();
+				
+				currentTimeWindows = allTimeWindows;
+				
+				defenderScreeningStrategy = result.getDefenderScreeningStrategy();
+				riskCategoryCoverage = result.getRiskCategoryCoverage();
+				defenderPayoffs = result.getDefenderPayoffs();
+				adversaryPayoffs = result.getAdversaryPayoffs();
+				adversaryStrategies = result.getAdversaryStrategies();
+				
+				return;
+			}
+		}
+		
 		List<RiskCategory> riskCategories = new ArrayList<RiskCategory>(model.getAdversaryDistribution().keySet());
 		Collections.sort(riskCategories);
 		
@@ -351,7 +451,7 @@ public class DARMSMarginalSolver{
 				riskCategoryCoverage.put(t, calculateRiskCategoryCoverage().get(t));
 				
 				for( ScreeningResource r: model.getScreeningResources().keySet() ){
-					if( t != allTimeWindows.get(allTimeWindows.size() - 1)){
+					if( ovMap.containsKey(t) ){
 						System.out.println();
 						System.out.println(r+" overflow amount: ");
 						System.out.println(cplex.getValue(ovMap.get(t).get(r)));
@@ -371,23 +471,833 @@ public class DARMSMarginalSolver{
 				}
 			}
 		}
-		else{
-			loadProblem(allTimeWindows);
-			
-			cplex.solve();
-			
-			if(!cplex.isPrimalFeasible()){
-				writeProblem("Infeasible.lp");
-				writeProblem("Infeasible.sol.txt");
-				throw new Exception("Infeasible. Capacity constraints exceeded.");
+		else{
+			loadProblem(allTimeWindows);
+			
+			cplex.solve();
+			
+			extractSolution();
+		}
+		
+		if(cacheKey != null){
+			resultCache.put(cacheKey, model, new DARMSResultCache.Result(defenderScreeningStrategy, riskCategoryCoverage, defenderPayoffs, adversaryPayoffs, adversaryStrategies));
+		}
+	}
+	
+	// A cache hit restores the extracted solution only and leaves no LP loaded: the strategy, coverage and payoff getters
+	// return the restored values, while methods that read the LP itself (writeProblem, exportSolution, the post-screening
+	// strategy) need an uncached solve. resolve() on a hit solves from scratch
+	public void setResultCache(DARMSResultCache resultCache){
+		this.resultCache = resultCache;
+	}
+	
+	private String cacheSettings(){
+		return "DARMSMarginalSolver zeroSum=" + zeroSum + " decomposed=" + decomposed + " flightByFlight=" + flightByFlight + " naive=" + naive + " robustDeviation=" + robustDeviation + " robustBudget=" + robustBudget;
+	}
+	
+	// Solves overlapping blocks of blockSize windows, commits the first blockSize - overlap windows of each block together with
+	// the overflow they push forward, and slides on. Only one block is held in memory at a time.
+	public void solveRollingHorizon(int blockSize, int overlap) throws Exception{
+		if(blockSize < 1 || overlap < 0 || overlap >= blockSize){
+			throw new Exception("Invalid rolling horizon: block size " + blockSize + ", overlap " + overlap);
+		}
+		
+		defenderScreeningStrategy = new HashMap<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>>();
+		riskCategoryCoverage = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>>();
+		rollingHorizonOverflow = new HashMap<Integer, Map<ScreeningResource, Double>>();
+		
+		int step = blockSize - overlap;
+		
+		carriedOverflow = null;
+		
+		try{
+			for(int start = 0; start < allTimeWindows.size(); start += step){
+				int end = Math.min(start + blockSize, allTimeWindows.size());
+				
+				List<Integer> block = new ArrayList<Integer>(allTimeWindows.subList(start, end));
+				
+				carryOverflow = end < allTimeWindows.size();
+				
+				loadProblem(block);
+				
+				cplex.solve();
+				
+				if(!cplex.isPrimalFeasible()){
+					exportProblem("Infeasible.lp", DARMSExporter.Level.INFEASIBLE);
+					throw new Exception("Infeasible. Capacity constraints exceeded. Time Windows: " + block);
+				}
+				
+				Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> blockStrategy = getDefenderScreeningStrategy();
+				Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>> blockCoverage = calculateRiskCategoryCoverage();
+				
+				// The final block commits everything it holds
+				int commit = carryOverflow ? Math.min(step, block.size()) : block.size();
+				
+				for(int i = 0; i < commit; i++){
+					int t = block.get(i);
+					
+					defenderScreeningStrategy.put(t, blockStrategy.get(t));
+					riskCategoryCoverage.put(t, blockCoverage.get(t));
+					
+					Map<ScreeningResource, Double> overflow = new HashMap<ScreeningResource, Double>();
+					
+					for(ScreeningResource r : model.getScreeningResources().keySet()){
+						overflow.put(r, ovMap.containsKey(t) ? cplex.getValue(ovMap.get(t).get(r)) : 0.0);
+					}
+					
+					rollingHorizonOverflow.put(t, overflow);
+					carriedOverflow = overflow;
+					
+					if(rollingHorizonListener != null){
+						rollingHorizonListener.committed(t, blockStrategy.get(t), overflow);
+					}
+				}
+				
+				// The final block is ended as well, so the getters serve the stitched solution rather than its LP
+				end();
+				
+				if(!carryOverflow){
+					break;
+				}
+			}
+		}
+		finally{
+			carriedOverflow = null;
+			carryOverflow = false;
+		}
+		
+		currentTimeWindows = allTimeWindows;
+		
+		calculateAdversaryResponses();
+	}
+	
+	// Best responses and payoffs over all windows from the riskCategoryCoverage field, for solutions stitched from several LPs
+	private void calculateAdversaryResponses(){
+		adversaryStrategies = calculateAdversaryStrategies();
+		defenderPayoffs = new HashMap<RiskCategory, Double>();
+		adversaryPayoffs = new HashMap<RiskCategory, Double>();
+		
+		for(RiskCategory c : adversaryStrategies.keySet()){
+			for(int t : adversaryStrategies.get(c).keySet()){
+				for(Flight f : adversaryStrategies.get(c).get(t).keySet()){
+					double coverage = riskCategoryCoverage.get(t).get(c).get(f).get(adversaryStrategies.get(c).get(t).get(f));
+					
+					defenderPayoffs.put(c, (coverage * payoffStructure.defCov(f)) + ((1.0 - coverage) * payoffStructure.defUncov(f)));
+					adversaryPayoffs.put(c, (coverage * payoffStructure.attCov(f)) + ((1.0 - coverage) * payoffStructure.attUncov(f)));
+				}
+			}
+		}
+	}
+	
+	public void setRollingHorizonListener(RollingHorizonListener rollingHorizonListener){
+		this.rollingHorizonListener = rollingHorizonListener;
+	}
+	
+	public Map<Integer, Map<ScreeningResource, Double>> getRollingHorizonOverflow(){
+		return rollingHorizonOverflow;
+	}
+	
+	// Streaming re-planning during the shift. Once window t has elapsed its observed check-in counts are passed in: the
+	// strategy planned for t is frozen, the overflow it actually left behind is carried into the next window, the remaining
+	// bookings of every flight are spread over its later windows along the original arrival curve, and only the remaining
+	// windows are re-solved. Windows must be observed in order, after an initial solve().
+	public void observeTimeWindow(int t, Map<Flight, Map<RiskCategory, Integer>> observed) throws Exception{
+		if(decomposed || defenderScreeningStrategy == null){
+			throw new Exception("Observing time windows requires a solved, non-decomposed problem.");
+		}
+		
+		int index = frozenTimeWindows.size();
+		
+		if(index >= allTimeWindows.size() || allTimeWindows.get(index) != t){
+			throw new Exception("Time window " + t + " observed out of order. Expected: " + ((index < allTimeWindows.size()) ? allTimeWindows.get(index) : "none"));
+		}
+		
+		long start = System.currentTimeMillis();
+		
+		if(index == 0){
+			plannedPassengerDistribution = passengerDistribution;
+			observedPassengers = new HashMap<Integer, Map<Flight, Map<RiskCategory, Integer>>>();
+			observedOverflow = new HashMap<Integer, Map<ScreeningResource, Double>>();
+			frozenScreeningStrategy = new HashMap<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>>();
+			frozenRiskCategoryCoverage = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>>();
+		}
+		
+		Map<Flight, Map<RiskCategory, Integer>> counts = new HashMap<Flight, Map<RiskCategory, Integer>>();
+		
+		// Only flights planned for the window have screening variables; arrivals of other flights are not screened here
+		for(Flight f : model.getFlights(t)){
+			counts.put(f, new HashMap<RiskCategory, Integer>());
+			
+			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+				boolean hasCount = observed.containsKey(f) && observed.get(f).containsKey(c);
+				
+				counts.get(f).put(c, hasCount ? observed.get(f).get(c) : 0);
+			}
+		}
+		
+		observedPassengers.put(t, counts);
+		frozenScreeningStrategy.put(t, defenderScreeningStrategy.get(t));
+		frozenRiskCategoryCoverage.put(t, riskCategoryCoverage.get(t));
+		frozenTimeWindows.add(t);
+		
+		Map<ScreeningResource, Double> incomingOverflow = (index > 0) ? observedOverflow.get(allTimeWindows.get(index - 1)) : null;
+		
+		observedOverflow.put(t, calculateObservedOverflow(t, incomingOverflow));
+		
+		List<Integer> remainingTimeWindows = new ArrayList<Integer>(allTimeWindows.subList(index + 1, allTimeWindows.size()));
+		
+		if(!remainingTimeWindows.isEmpty()){
+			passengerDistribution = estimatePassengerDistribution(remainingTimeWindows);
+			
+			end();
+			
+			carriedOverflow = observedOverflow.get(t);
+			carryOverflow = false;
+			
+			try{
+				loadProblem(remainingTimeWindows);
+				
+				cplex.solve();
+				
+				extractSolution();
+			}
+			finally{
+				carriedOverflow = null;
+			}
+		}
+		
+		// The LP only holds the remaining windows, so it is dropped and the getters serve the frozen and re-planned windows together
+		end();
+		
+		currentTimeWindows = allTimeWindows;
+		
+		for(int frozen : frozenTimeWindows){
+			defenderScreeningStrategy.put(frozen, frozenScreeningStrategy.get(frozen));
+			riskCategoryCoverage.put(frozen, frozenRiskCategoryCoverage.get(frozen));
+		}
+		
+		calculateAdversaryResponses();
+		
+		replanRuntime = (System.currentTimeMillis() - start) / 1000.0;
+	}
+	
+	private Map<ScreeningResource, Double> calculateObservedOverflow(int t, Map<ScreeningResource, Double> incomingOverflow){
+		Map<ScreeningResource, Integer> screeningResources = model.getScreeningResources();
+		
+		Map<ScreeningResource, Double> overflow = new HashMap<ScreeningResource, Double>();
+		
+		for(ScreeningResource r : screeningResources.keySet()){
+			double load = (incomingOverflow != null) ? incomingOverflow.get(r) : 0.0;
+			
+			for(Flight f : observedPassengers.get(t).keySet()){
+				for(RiskCategory c : observedPassengers.get(t).get(f).keySet()){
+					for(ScreeningOperation o : model.getScreeningOperations()){
+						if(o.getResources().contains(r)){
+							load += observedPassengers.get(t).get(f).get(c) * frozenScreeningStrategy.get(t).get(f).get(c).get(o);
+						}
+					}
+				}
+			}
+			
+			overflow.put(r, Math.max(0.0, load - r.capacity() * screeningResources.get(r)));
+		}
+		
+		return overflow;
+	}
+	
+	// Past windows keep their observed counts; each flight's planned total minus what has checked in so far is spread over
+	// its remaining windows in proportion to the planned counts, with the largest remainders rounded up
+	private PassengerDistribution estimatePassengerDistribution(List<Integer> remainingTimeWindows){
+		Map<Integer, Map<Flight, Map<RiskCategory, Integer>>> distribution = new HashMap<Integer, Map<Flight, Map<RiskCategory, Integer>>>();
+		
+		for(int t : frozenTimeWindows){
+			distribution.put(t, observedPassengers.get(t));
+		}
+		
+		for(int t : remainingTimeWindows){
+			distribution.put(t, new HashMap<Flight, Map<RiskCategory, Integer>>());
+			
+			for(Flight f : model.getFlights(t)){
+				distribution.get(t).put(f, new HashMap<RiskCategory, Integer>());
+			}
+		}
+		
+		for(Flight f : model.getFlights()){
+			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+				int planned = 0;
+				int checkedIn = 0;
+				int plannedRemaining = 0;
+				
+				for(int t : allTimeWindows){
+					if(!model.getFlights(t).contains(f)){
+						continue;
+					}
+					
+					int count = plannedPassengerDistribution.get(t, f, c);
+					
+					planned += count;
+					
+					if(distribution.get(t).get(f).containsKey(c)){
+						checkedIn += distribution.get(t).get(f).get(c);
+					}
+					else{
+						plannedRemaining += count;
+					}
+				}
+				
+				int remaining = Math.max(0, planned - checkedIn);
+				int assigned = 0;
+				
+				Map<Integer, Double> fractions = new HashMap<Integer, Double>();
+				
+				for(int t : remainingTimeWindows){
+					if(!distribution.get(t).containsKey(f)){
+						continue;
+					}
+					
+					double estimate = (plannedRemaining > 0) ? remaining * plannedPassengerDistribution.get(t, f, c) / (double)plannedRemaining : 0.0;
+					
+					distribution.get(t).get(f).put(c, (int)estimate);
+					fractions.put(t, estimate % 1.0);
+					
+					assigned += (int)estimate;
+				}
+				
+				List<Integer> roundingOrder = new ArrayList<Integer>(fractions.keySet());
+				
+				Collections.sort(roundingOrder, new Comparator<Integer>(){
+					public int compare(Integer t1, Integer t2){
+						return Double.compare(fractions.get(t2), fractions.get(t1));
+					}
+				});
+				
+				for(int i = 0; i < roundingOrder.size() && assigned < remaining && plannedRemaining > 0; i++){
+					int t = roundingOrder.get(i);
+					
+					distribution.get(t).get(f).put(c, distribution.get(t).get(f).get(c) + 1);
+					assigned++;
+				}
+			}
+		}
+		
+		return new PassengerDistribution(distribution);
+	}
+	
+	public List<Integer> getFrozenTimeWindows(){
+		return frozenTimeWindows;
+	}
+	
+	public Map<Integer, Map<ScreeningResource, Double>> getObservedOverflow(){
+		return observedOverflow;
+	}
+	
+	public double getReplanRuntime(){
+		return replanRuntime;
+	}
+	
+	// Re-solves the loaded LP after in-place coefficient updates, restarting simplex from the previous basis
+	public void resolve() throws Exception{
+		if(cplex == null || decomposed){
+			solve();
+			return;
+		}
+		
+		cplex.setParam(IloCplex.IntParam.RootAlg, IloCplex.Algorithm.Primal);
+		cplex.setParam(IloCplex.IntParam.AdvInd, 1);
+		
+		cplex.solve();
+		
+		extractSolution();
+	}
+	
+	// Releases the native CPLEX environment of the loaded LP. The extracted solution stays readable; the next resolve()
+	// solves from scratch
+	public void end(){
+		if(cplex != null){
+			cplex.end();
+			cplex = null;
+		}
+		
+		screeningThroughputRows = null;
+		defenderPayoffRows = null;
+		objective = null;
+	}
+	
+	private void extractSolution() throws Exception{
+		if(!cplex.isPrimalFeasible()){
+			exportProblem("Infeasible.lp", DARMSExporter.Level.INFEASIBLE);
+			throw new Exception("Infeasible. Capacity constraints exceeded.");
+		}
+		
+		defenderScreeningStrategy = getDefenderScreeningStrategy();
+		riskCategoryCoverage = calculateRiskCategoryCoverage();
+		defenderPayoffs = getDefenderPayoffs();
+		adversaryPayoffs = getAdversaryPayoffs();
+		adversaryStrategies = getAdversaryStrategies();
+	}
+	
+	public void setAdversaryDistribution(Map<RiskCategory, Double> adversaryDistribution) throws IloException{
+		this.adversaryDistribution = adversaryDistribution;
+		
+		if(objective != null && !decomposed){
+			for(RiskCategory c : dMap.keySet()){
+				cplex.setLinearCoef(objective, dMap.get(c), adversaryDistribution.get(c));
+			}
+		}
+	}
+	
+	public void setThreads(int threads){
+		this.threads = threads;
+	}
+	
+	// Swaps the passenger counts of the loaded LP in place, so the next resolve() warm starts from the previous basis
+	public void setPassengerDistribution(PassengerDistribution passengerDistribution) throws IloException{
+		this.passengerDistribution = passengerDistribution;
+		
+		if(cplex == null || screeningThroughputRows == null || decomposed){
+			return;
+		}
+		
+		// Marginal bound and robust protection rows are scaled by passenger counts as well; rebuild instead of patching them
+		if(!marginalBounds.isEmpty() || robustDeviation > 0){
+			end();
+			return;
+		}
+		
+		for(int t : screeningThroughputRows.keySet()){
+			for(ScreeningResource r : screeningThroughputRows.get(t).keySet()){
+				// Static screening shares s variables among flights, so coefficients are summed before they are set
+				Map<IloNumVar, Double> coefficients = new HashMap<IloNumVar, Double>();
+				
+				for(Flight f : model.getFlights(t)){
+					for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+						for(ScreeningOperation o : model.getScreeningOperations()){
+							if(o.getResources().contains(r)){
+								IloNumVar var = sMap.get(t).get(f).get(c).get(o);
+								
+								double coefficient = coefficients.containsKey(var) ? coefficients.get(var) : 0.0;
+								
+								coefficients.put(var, coefficient + passengerDistribution.get(t, f, c));
+							}
+						}
+					}
+				}
+				
+				for(IloNumVar var : coefficients.keySet()){
+					cplex.setLinearCoef(screeningThroughputRows.get(t).get(r), var, coefficients.get(var));
+				}
+			}
+		}
+	}
+	
+	// Swaps the payoff structure in place by rewriting the coverage coefficients, big-M values and bounds of the payoff rows;
+	// call resolve() afterwards
+	public void setPayoffStructure(PayoffStructure payoffStructure) throws Exception{
+		this.payoffStructure = payoffStructure;
+		
+		if(zeroSum){
+			verifyZeroSum();
+		}
+		
+		if(defenderPayoffRows == null || decomposed){
+			return;
+		}
+		
+		Map<Flight, Double> defenderBigM = zeroSum ? null : calculateDefenderBigM();
+		Map<Flight, Double> adversaryBigM = zeroSum ? null : calculateAdversaryBigM();
+		
+		for(int t : defenderPayoffRows.keySet()){
+			for(RiskCategory c : defenderPayoffRows.get(t).keySet()){
+				for(Flight f : defenderPayoffRows.get(t).get(c).keySet()){
+					double defenderCoef = payoffStructure.defUncov(f) - payoffStructure.defCov(f);
+					
+					for(AttackMethod m : defenderPayoffRows.get(t).get(c).get(f).keySet()){
+						IloRange row = defenderPayoffRows.get(t).get(c).get(f).get(m);
+						
+						if(zeroSum){
+							for(ScreeningOperation o : model.getScreeningOperations()){
+								cplex.setLinearCoef(row, sMap.get(t).get(f).get(c).get(o), defenderCoef * model.effectiveness(o, c, m));
+							}
+							
+							for(PostScreeningResource p : model.getPostScreeningResources().keySet()){
+								cplex.setLinearCoef(row, pMap.get(t).get(f).get(p), defenderCoef * p.effectiveness(m));
+							}
+							
+							row.setUB(payoffStructure.defUncov(f));
+						}
+						else{
+							IloNumVar x = xMap.get(t).get(c).get(f).get(m);
+							IloNumVar a = aMap.get(t).get(c).get(f).get(m);
+							
+							cplex.setLinearCoef(row, x, defenderCoef);
+							cplex.setLinearCoef(row, a, defenderBigM.get(f));
+							row.setUB(defenderBigM.get(f) + payoffStructure.defUncov(f));
+							
+							double attackerCoef = -1.0 * (payoffStructure.attCov(f) - payoffStructure.attUncov(f));
+							
+							IloRange lowerRow = adversaryPayoffLowerRows.get(t).get(c).get(f).get(m);
+							IloRange upperRow = adversaryPayoffUpperRows.get(t).get(c).get(f).get(m);
+							
+							cplex.setLinearCoef(lowerRow, x, attackerCoef);
+							lowerRow.setLB(payoffStructure.attUncov(f));
+							
+							cplex.setLinearCoef(upperRow, x, attackerCoef);
+							cplex.setLinearCoef(upperRow, a, adversaryBigM.get(f));
+							upperRow.setUB(adversaryBigM.get(f) + payoffStructure.attUncov(f));
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	// d_c never exceeds the best defender payoff of any flight, so a row switched off by a = 0 only has to make room for
+	// the gap between that payoff and the worst this flight can pay out
+	private Map<Flight, Double> calculateDefenderBigM(){
+		double maxPayoff = Double.NEGATIVE_INFINITY;
+		
+		for(Flight f : model.getFlights()){
+			maxPayoff = Math.max(maxPayoff, Math.max(payoffStructure.defCov(f), payoffStructure.defUncov(f)));
+		}
+		
+		Map<Flight, Double> bigM = new HashMap<Flight, Double>();
+		
+		for(Flight f : model.getFlights()){
+			bigM.put(f, maxPayoff - Math.min(payoffStructure.defCov(f), payoffStructure.defUncov(f)));
+		}
+		
+		return bigM;
+	}
+	
+	private Map<Flight, Double> calculateAdversaryBigM(){
+		double maxPayoff = Double.NEGATIVE_INFINITY;
+		
+		for(Flight f : model.getFlights()){
+			maxPayoff = Math.max(maxPayoff, Math.max(payoffStructure.attCov(f), payoffStructure.attUncov(f)));
+		}
+		
+		Map<Flight, Double> bigM = new HashMap<Flight, Double>();
+		
+		for(Flight f : model.getFlights()){
+			bigM.put(f, maxPayoff - Math.min(payoffStructure.attCov(f), payoffStructure.attUncov(f)));
+		}
+		
+		return bigM;
+	}
+	
+	// Moves the solver to the variant model of a delay, cancellation or new flight. In the zero-sum flight-by-flight LP only
+	// the columns and rows of the affected flight in the affected windows are touched: its screening variables, action rows
+	// and payoff rows are added or dropped, and its throughput coefficients follow the new passenger counts, after which the
+	// LP is re-solved warm. Any other configuration is rebuilt and solved from scratch.
+	public void applyFlightEvent(FlightEvent event) throws Exception{
+		if(event.getBaseModel() != model){
+			throw new Exception("Flight event " + event + " was not applied to the model of this solver.");
+		}
+		
+		if(passengerDistribution != model.getPassengerDistribution()){
+			throw new Exception("Flight events require the solver to use the passenger distribution of the model.");
+		}
+		
+		Flight previousFlight = event.getPreviousFlight();
+		Flight f = event.getFlight();
+		
+		PayoffStructure eventPayoffStructure = (payoffStructure == model.getPayoffStructure()) ? event.getModel().getPayoffStructure() : payoffStructure;
+		
+		if(event.getType() != FlightEvent.Type.CANCEL){
+			if(!eventPayoffStructure.keySet().contains(f)){
+				throw new Exception("Payoff structure " + eventPayoffStructure + " has no payoffs for flight " + f + ".");
+			}
+		}
+		
+		model = event.getModel();
+		passengerDistribution = model.getPassengerDistribution();
+		payoffStructure = eventPayoffStructure;
+		
+		if(zeroSum && event.getType() != FlightEvent.Type.CANCEL){
+			verifyZeroSum();
+		}
+		
+		boolean patched = canPatchFlightEvent();
+		
+		if(patched){
+			for(int t : allTimeWindows){
+				boolean previous = event.getPreviousTimeWindows().contains(t);
+				boolean current = event.getCurrentTimeWindows().contains(t);
+				
+				if(previous && current && previousFlight == f){
+					updateFlightThroughput(t, f);
+				}
+				else{
+					if(previous){
+						removeFlightColumns(t, previousFlight);
+					}
+					
+					if(current){
+						addFlightColumns(t, f);
+					}
+				}
+			}
+			
+			resolve();
+		}
+		else{
+			if(cplex != null){
+				cplex.end();
+			}
+			
+			solve();
+		}
+		
+		flightEvents.add(event);
+		flightEventPatched.add(patched);
+		flightEventLatencies.add((System.nanoTime() - event.getStartTime()) / 1e9);
+	}
+	
+	private boolean canPatchFlightEvent(){
+		return cplex != null && zeroSum && flightByFlight && !decomposed && marginalBounds.isEmpty() && robustDeviation <= 0 && model.getPostScreeningResources().isEmpty() && sMap.keySet().containsAll(allTimeWindows);
+	}
+	
+	private void addFlightColumns(int t, Flight f) throws IloException{
+		sMap.get(t).put(f, new HashMap<RiskCategory, Map<ScreeningOperation, IloNumVar>>());
+		pMap.get(t).put(f, new HashMap<PostScreeningResource, IloNumVar>());
+		
+		screeningActionRows.get(t).put(f, new HashMap<RiskCategory, IloRange>());
+		
+		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+			sMap.get(t).get(f).put(c, new HashMap<ScreeningOperation, IloNumVar>());
+			
+			for(ScreeningOperation o : model.getScreeningOperations()){
+				sMap.get(t).get(f).get(c).put(o, cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_t" + t + "_f" +  f.id() + "_c" + c.id() + "_o" + o.getID()));
+			}
+			
+			IloRange actionRow = screeningActionRow(t, f, c);
+			
+			cplex.add(actionRow);
+			screeningActionRows.get(t).get(f).put(c, actionRow);
+			constraints.add(actionRow);
+			
+			defenderPayoffRows.get(t).get(c).put(f, new HashMap<AttackMethod, IloRange>());
+			
+			for(AttackMethod m : model.getAttackMethods()){
+				IloRange payoffRow = zeroSumDefenderPayoffRow(t, c, f, m);
+				
+				cplex.add(payoffRow);
+				defenderPayoffRows.get(t).get(c).get(f).put(m, payoffRow);
+				constraints.add(payoffRow);
+			}
+		}
+		
+		updateFlightThroughput(t, f);
+	}
+	
+	// Rows are removed first, then the screening variables are deleted, which also drops them from the throughput rows
+	private void removeFlightColumns(int t, Flight f) throws IloException{
+		List<IloNumVar> columns = new ArrayList<IloNumVar>();
+		
+		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+			columns.addAll(sMap.get(t).get(f).get(c).values());
+			
+			IloRange actionRow = screeningActionRows.get(t).get(f).get(c);
+			
+			cplex.remove(actionRow);
+			constraints.remove(actionRow);
+			
+			for(AttackMethod m : model.getAttackMethods()){
+				IloRange payoffRow = defenderPayoffRows.get(t).get(c).get(f).get(m);
+				
+				cplex.remove(payoffRow);
+				constraints.remove(payoffRow);
+			}
+			
+			defenderPayoffRows.get(t).get(c).remove(f);
+		}
+		
+		cplex.delete(columns.toArray(new IloNumVar[columns.size()]));
+		
+		screeningActionRows.get(t).remove(f);
+		sMap.get(t).remove(f);
+		pMap.get(t).remove(f);
+	}
+	
+	private void updateFlightThroughput(int t, Flight f) throws IloException{
+		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+			for(ScreeningOperation o : model.getScreeningOperations()){
+				for(ScreeningResource r : o.getResources()){
+					cplex.setLinearCoef(screeningThroughputRows.get(t).get(r), sMap.get(t).get(f).get(c).get(o), passengerDistribution.get(t, f, c));
+				}
+			}
+		}
+	}
+	
+	public double getLastFlightEventLatency(){
+		return flightEventLatencies.get(flightEventLatencies.size() - 1);
+	}
+	
+	public boolean lastFlightEventPatched(){
+		return flightEventPatched.get(flightEventPatched.size() - 1);
+	}
+	
+	public void writeFlightEvents(String filename) throws Exception{
+		FileWriter fw = new FileWriter(new File(filename));
+		
+		fw.write("Event, Flight, Patched, Latency");
+		
+		for(int i = 0; i < flightEvents.size(); i++){
+			FlightEvent event = flightEvents.get(i);
+			
+			fw.write("\n" + event.getType() + ", " + event.getFlight() + ", " + flightEventPatched.get(i) + ", " + flightEventLatencies.get(i));
+		}
+		
+		fw.close();
+	}
+	
+	// Sweeps a uniform fine over all overflow variables on a single LP. Only the overflow objective
+	// coefficients change between levels and simplex restarts from the previous basis. The optimal
+	// value is piecewise linear in the fine, so levels between two solves that share a line are
+	// interpolated instead of solved (Eisner-Severance).
+	public void solveFineSweep(List<Double> fines) throws Exception{
+		if(decomposed){
+			throw new Exception("Fine sweep requires the non-decomposed formulation.");
+		}
+		
+		List<Double> fineLevels = new ArrayList<Double>(fines);
+		Collections.sort(fineLevels);
+		
+		fineSweepPayoffs = new HashMap<Double, Double>();
+		fineSweepOverflow = new HashMap<Double, Double>();
+		fineSweepBreakpoints = new ArrayList<Double>();
+		fineSweepSolves = 0;
+		
+		if(fineLevels.isEmpty()){
+			return;
+		}
+		
+		loadProblem(allTimeWindows);
+		
+		cplex.setParam(IloCplex.IntParam.RootAlg, IloCplex.Algorithm.Primal);
+		cplex.setParam(IloCplex.IntParam.AdvInd, 1);
+		
+		double minFine = fineLevels.get(0);
+		double maxFine = fineLevels.get(fineLevels.size() - 1);
+		
+		List<double[]> lines = new ArrayList<double[]>();
+		
+		double[] lo = solveAtFine(minFine);
+		lines.add(lo);
+		
+		if(maxFine > minFine){
+			double[] hi = solveAtFine(maxFine);
+			lines.add(hi);
+			
+			sweepInterval(lo, hi, lines, 0);
+		}
+		
+		Collections.sort(fineSweepBreakpoints);
+		
+		for(double fine : fineLevels){
+			double bestObjective = Double.NEGATIVE_INFINITY;
+			
+			for(double[] line : lines){
+				double lineObjective = line[0] - fine * line[1];
+				
+				if(lineObjective > bestObjective + DARMSModel.EPSILON){
+					bestObjective = lineObjective;
+					
+					fineSweepPayoffs.put(fine, line[0]);
+					fineSweepOverflow.put(fine, line[1]);
+				}
+			}
+		}
+	}
+	
+	private void sweepInterval(double[] lo, double[] hi, List<double[]> lines, int depth) throws Exception{
+		double overflowDifference = lo[1] - hi[1];
+		
+		if(overflowDifference <= DARMSModel.EPSILON || depth > 50){
+			return;
+		}
+		
+		double breakpoint = (lo[0] - hi[0]) / overflowDifference;
+		
+		double[] mid = solveAtFine(breakpoint);
+		
+		double lineObjective = lo[0] - breakpoint * lo[1];
+		double midObjective = mid[0] - breakpoint * mid[1];
+		
+		if(midObjective <= lineObjective + DARMSModel.EPSILON * Math.max(1.0, Math.abs(lineObjective))){
+			fineSweepBreakpoints.add(breakpoint);
+			return;
+		}
+		
+		lines.add(mid);
+		
+		sweepInterval(lo, mid, lines, depth + 1);
+		sweepInterval(mid, hi, lines, depth + 1);
+	}
+	
+	private double[] solveAtFine(double fine) throws Exception{
+		for(int t : ovMap.keySet()){
+			for(ScreeningResource r : ovMap.get(t).keySet()){
+				cplex.setLinearCoef(objective, ovMap.get(t).get(r), -fine);
+			}
+		}
+		
+		cplex.solve();
+		
+		fineSweepSolves++;
+		
+		if(!cplex.isPrimalFeasible()){
+			throw new Exception("Infeasible. Capacity constraints exceeded. Fine: " + fine);
+		}
+		
+		double defenderPayoff = 0.0;
+		double overflowPassengers = 0.0;
+		
+		for(RiskCategory c : adversaryDistribution.keySet()){
+			defenderPayoff += cplex.getValue(dMap.get(c)) * adversaryDistribution.get(c);
+		}
+		
+		for(int t : ovMap.keySet()){
+			for(ScreeningResource r : ovMap.get(t).keySet()){
+				overflowPassengers += cplex.getValue(ovMap.get(t).get(r));
 			}
+		}
+		
+		return new double[]{defenderPayoff, overflowPassengers};
+	}
+	
+	public Map<Double, Double> getFineSweepPayoffs(){
+		return fineSweepPayoffs;
+	}
+	
+	public Map<Double, Double> getFineSweepOverflow(){
+		return fineSweepOverflow;
+	}
+	
+	public List<Double> getFineSweepBreakpoints(){
+		return fineSweepBreakpoints;
+	}
+	
+	public int getFineSweepSolves(){
+		return fineSweepSolves;
+	}
+	
+	public void writeFineSweep(String filename) throws Exception{
+		FileWriter fw = new FileWriter(new File(filename));
+		
+		List<Double> fineLevels = new ArrayList<Double>(fineSweepPayoffs.keySet());
+		Collections.sort(fineLevels);
+		
+		fw.write("Fine, DefenderPayoff, OverflowPassengers, Objective");
+		
+		for(double fine : fineLevels){
+			double payoff = fineSweepPayoffs.get(fine);
+			double overflow = fineSweepOverflow.get(fine);
 			
-			defenderScreeningStrategy = getDefenderScreeningStrategy();
-			riskCategoryCoverage = calculateRiskCategoryCoverage();
-			defenderPayoffs = getDefenderPayoffs();
-			adversaryPayoffs = getAdversaryPayoffs();
-			adversaryStrategies = getAdversaryStrategies();
+			fw.write("\n" + fine + ", " + payoff + ", " + overflow + ", " + (payoff - fine * overflow));
 		}
+		
+		fw.close();
 	}
 	
 	private void sumDefenderCoverageRow() throws IloException{
@@ -398,7 +1308,7 @@ public class DARMSMarginalSolver{
 						IloNumExpr expr = xMap.get(t).get(c).get(f).get(m);
 						
 						for(ScreeningOperation o : model.getScreeningOperations()){
-							expr = cplex.sum(expr, cplex.prod(sMap.get(t).get(f).get(c).get(o), -o.effectiveness(c, m)));
+							expr = cplex.sum(expr, cplex.prod(sMap.get(t).get(f).get(c).get(o), -model.effectiveness(o, c, m)));
 						}
 						
 						for(PostScreeningResource p : model.getPostScreeningResources().keySet()){
@@ -413,33 +1323,89 @@ public class DARMSMarginalSolver{
 	}
 	
 	private void setZeroSumDefenderPayoffRow() throws IloException{
+		defenderPayoffRows = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, IloRange>>>>();
+		
 		for(int t : currentTimeWindows){
+			defenderPayoffRows.put(t, new HashMap<RiskCategory, Map<Flight, Map<AttackMethod, IloRange>>>());
+			
 			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+				defenderPayoffRows.get(t).put(c, new HashMap<Flight, Map<AttackMethod, IloRange>>());
+				
 				for(Flight f : model.getFlights(t)){
+					defenderPayoffRows.get(t).get(c).put(f, new HashMap<AttackMethod, IloRange>());
+					
 					for(AttackMethod m : model.getAttackMethods()){
-						//IloNumExpr expr = cplex.sum(dMap.get(c), cplex.prod(xMap.get(t).get(c).get(f).get(m), f.getDefUncovPayoff() - f.getDefCovPayoff()));
-						IloNumExpr expr = cplex.sum(dMap.get(c), cplex.prod(xMap.get(t).get(c).get(f).get(m), payoffStructure.defUncov(f) - payoffStructure.defCov(f)));
+						IloRange row = zeroSumDefenderPayoffRow(t, c, f, m);
+						
+						defenderPayoffRows.get(t).get(c).get(f).put(m, row);
+						constraints.add(row);
 						
-						//constraints.add(cplex.le(expr, f.getDefUncovPayoff(), "DC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id()));
-						constraints.add(cplex.le(expr, payoffStructure.defUncov(f), "DC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id()));
+						if(!model.getPostScreeningResources().isEmpty()){
+							constraints.add(zeroSumCoverageRow(t, c, f, m));
+						}
 					}
 				}
 			}
 		}
 	}
 	
+	// d_c + (U - C) * (sum_o s * eff + sum_p p * eff) <= U, i.e. the coverage row substituted into the payoff row
+	private IloRange zeroSumDefenderPayoffRow(int t, RiskCategory c, Flight f, AttackMethod m) throws IloException{
+		double defenderCoef = payoffStructure.defUncov(f) - payoffStructure.defCov(f);
+		
+		IloNumExpr expr = dMap.get(c);
+		
+		for(ScreeningOperation o : model.getScreeningOperations()){
+			expr = cplex.sum(expr, cplex.prod(sMap.get(t).get(f).get(c).get(o), defenderCoef * model.effectiveness(o, c, m)));
+		}
+		
+		for(PostScreeningResource p : model.getPostScreeningResources().keySet()){
+			expr = cplex.sum(expr, cplex.prod(pMap.get(t).get(f).get(p), defenderCoef * p.effectiveness(m)));
+		}
+		
+		return cplex.le(expr, payoffStructure.defUncov(f), "DC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id());
+	}
+	
+	// Without x its [0, 1] bound is gone; screening alone stays below 1, but post-screening can push the coverage past it
+	private IloRange zeroSumCoverageRow(int t, RiskCategory c, Flight f, AttackMethod m) throws IloException{
+		IloNumExpr expr = cplex.constant(0);
+		
+		for(ScreeningOperation o : model.getScreeningOperations()){
+			expr = cplex.sum(expr, cplex.prod(sMap.get(t).get(f).get(c).get(o), model.effectiveness(o, c, m)));
+		}
+		
+		for(PostScreeningResource p : model.getPostScreeningResources().keySet()){
+			expr = cplex.sum(expr, cplex.prod(pMap.get(t).get(f).get(p), p.effectiveness(m)));
+		}
+		
+		return cplex.le(expr, 1.0, "X" + t + "C" + c.id() + "F" + f.id() + "M" + m.id() + "MAX");
+	}
+	
 	private void setGeneralSumDefenderPayoffRow() throws IloException{
+		Map<Flight, Double> bigM = calculateDefenderBigM();
+		
+		defenderPayoffRows = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, IloRange>>>>();
+		
 		for(int t : currentTimeWindows){
+			defenderPayoffRows.put(t, new HashMap<RiskCategory, Map<Flight, Map<AttackMethod, IloRange>>>());
+			
 			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+				defenderPayoffRows.get(t).put(c, new HashMap<Flight, Map<AttackMethod, IloRange>>());
+				
 				for(Flight f : model.getFlights(t)){
+					defenderPayoffRows.get(t).get(c).put(f, new HashMap<AttackMethod, IloRange>());
+					
 					for(AttackMethod m : model.getAttackMethods()){
 						//IloNumExpr expr = cplex.sum(dMap.get(c), cplex.prod(xMap.get(t).get(c).get(f).get(m), f.getDefUncovPayoff() - f.getDefCovPayoff()));
 						IloNumExpr expr = cplex.sum(dMap.get(c), cplex.prod(xMap.get(t).get(c).get(f).get(m), payoffStructure.defUncov(f) - payoffStructure.defCov(f)));
 						
-						expr = cplex.sum(expr, cplex.prod(aMap.get(t).get(c).get(f).get(m), MM));
+						expr = cplex.sum(expr, cplex.prod(aMap.get(t).get(c).get(f).get(m), bigM.get(f)));
 						
 						//constraints.add(cplex.le(expr, MM + f.getDefUncovPayoff(), "DC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id()));
-						constraints.add(cplex.le(expr, MM + payoffStructure.defUncov(f), "DC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id()));
+						IloRange row = cplex.le(expr, bigM.get(f) + payoffStructure.defUncov(f), "DC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id());
+						
+						defenderPayoffRows.get(t).get(c).get(f).put(m, row);
+						constraints.add(row);
 					}
 				}
 			}
@@ -447,125 +1413,141 @@ public class DARMSMarginalSolver{
 	}
 	
 	private void setAdversaryPayoffRow() throws IloException{
+		Map<Flight, Double> bigM = calculateAdversaryBigM();
+		
+		adversaryPayoffLowerRows = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, IloRange>>>>();
+		adversaryPayoffUpperRows = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, IloRange>>>>();
+		
 		for(int t : currentTimeWindows){
+			adversaryPayoffLowerRows.put(t, new HashMap<RiskCategory, Map<Flight, Map<AttackMethod, IloRange>>>());
+			
 			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+				adversaryPayoffLowerRows.get(t).put(c, new HashMap<Flight, Map<AttackMethod, IloRange>>());
+				
 				for(Flight f : model.getFlights(t)){
+					adversaryPayoffLowerRows.get(t).get(c).put(f, new HashMap<AttackMethod, IloRange>());
+					
 					for(AttackMethod m : model.getAttackMethods()){
 						//IloNumExpr expr = cplex.sum(kMap.get(c), cplex.prod(xMap.get(t).get(c).get(f).get(m), -1.0 * (f.getAttCovPayoff() - f.getAttUncovPayoff())));
 						IloNumExpr expr = cplex.sum(kMap.get(c), cplex.prod(xMap.get(t).get(c).get(f).get(m), -1.0 * (payoffStructure.attCov(f) - payoffStructure.attUncov(f))));
 							
 						//constraints.add(cplex.ge(expr, f.getAttUncovPayoff(), "AC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id() + "Lo"));
-						constraints.add(cplex.ge(expr, payoffStructure.attUncov(f), "AC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id() + "Lo"));
+						IloRange row = cplex.ge(expr, payoffStructure.attUncov(f), "AC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id() + "Lo");
+						
+						adversaryPayoffLowerRows.get(t).get(c).get(f).put(m, row);
+						constraints.add(row);
 					}
 				}
 			}
 		}
 
 		for(int t : currentTimeWindows){
+			adversaryPayoffUpperRows.put(t, new HashMap<RiskCategory, Map<Flight, Map<AttackMethod, IloRange>>>());
+			
 			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+				adversaryPayoffUpperRows.get(t).put(c, new HashMap<Flight, Map<AttackMethod, IloRange>>());
+				
 				for(Flight f : model.getFlights(t)){
+					adversaryPayoffUpperRows.get(t).get(c).put(f, new HashMap<AttackMethod, IloRange>());
+					
 					for(AttackMethod m : model.getAttackMethods()){
 						//IloNumExpr expr = cplex.sum(kMap.get(c), cplex.prod(xMap.get(t).get(c).get(f).get(m), -1.0 * (f.getAttCovPayoff() - f.getAttUncovPayoff())));
 						IloNumExpr expr = cplex.sum(kMap.get(c), cplex.prod(xMap.get(t).get(c).get(f).get(m), -1.0 * (payoffStructure.attCov(f) - payoffStructure.attUncov(f))));
 						
-						expr = cplex.sum(expr, cplex.prod(aMap.get(t).get(c).get(f).get(m), MM));
+						expr = cplex.sum(expr, cplex.prod(aMap.get(t).get(c).get(f).get(m), bigM.get(f)));
 						
 						//constraints.add(cplex.le(expr, MM + f.getAttUncovPayoff(), "AC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id() + "Up"));
-						constraints.add(cplex.le(expr, MM + payoffStructure.attUncov(f), "AC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id() + "Up"));
+						IloRange row = cplex.le(expr, bigM.get(f) + payoffStructure.attUncov(f), "AC" + t + "C" + c.id() + "F" + f.id() + "M" + m.id() + "Up");
+						
+						adversaryPayoffUpperRows.get(t).get(c).get(f).put(m, row);
+						constraints.add(row);
 					}
 				}
 			}
 		}
 	}
 
-	private void setStaticScreening() throws IloException{
+	private void sumDefenderScreeningActionRow() throws IloException{
+		screeningActionRows = new HashMap<Integer, Map<Flight, Map<RiskCategory, IloRange>>>();
+		
 		for(int t : currentTimeWindows){
-			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
-				for(ScreeningOperation o : model.getScreeningOperations()){
-					for(Flight f1 : model.getFlights(t)){
-						IloNumExpr expr1 = sMap.get(t).get(f1).get(c).get(o);
-						
-						for(Flight f2 : model.getFlights(t)){
-							if(f2.id() - f1.id() == 1){
-								IloNumExpr expr2 = cplex.prod(-1.0, sMap.get(t).get(f2).get(c).get(o));
-								
-								IloNumExpr expr = cplex.sum(expr1, expr2);
-								
-								constraints.add(cplex.eq(expr, 0.0, "T" + t + "C" + c.id() + "O" + o.getID() + "F" + f1.id() + "F" + f2.id()));
-							}
-						}
+			screeningActionRows.put(t, new HashMap<Flight, Map<RiskCategory, IloRange>>());
+			
+			for(Flight f : model.getFlights(t)){
+				screeningActionRows.get(t).put(f, new HashMap<RiskCategory, IloRange>());
+				
+				for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+					// With shared screening variables the row of the first flight (and category) already covers the others
+					if(!flightByFlight && (f != model.getFlights(t).get(0) || (naive && !c.equals(firstRiskCategory())))){
+						continue;
 					}
+					
+					IloRange row = screeningActionRow(t, f, c);
+					
+					screeningActionRows.get(t).get(f).put(c, row);
+					constraints.add(row);
 				}
 			}
 		}
 	}
 	
-	private void setNaiveScreening() throws IloException{
-		for(int t : currentTimeWindows){
-			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
-				for(ScreeningOperation o : model.getScreeningOperations()){
-					for(Flight f1 : model.getFlights(t)){
-						IloNumExpr expr1 = sMap.get(t).get(f1).get(c).get(o);
-						
-						for(Flight f2 : model.getFlights(t)){
-							if(f2.id() - f1.id() == 1){
-								IloNumExpr expr2 = cplex.prod(-1.0, sMap.get(t).get(f2).get(c).get(o));
-								
-								IloNumExpr expr = cplex.sum(expr1, expr2);
-								
-								constraints.add(cplex.eq(expr, 0.0, "T" + t + "C" + c.id() + "O" + o.getID() + "F" + f1.id() + "F" + f2.id()));
-							}
-						}
-					}
-				}
-			}
+	private IloRange screeningActionRow(int t, Flight f, RiskCategory c) throws IloException{
+		IloNumExpr expr = cplex.constant(0);
+		
+		for(ScreeningOperation o : model.getScreeningOperations()){
+			expr = cplex.sum(expr, sMap.get(t).get(f).get(c).get(o));
 		}
 		
-		for(int t : currentTimeWindows){
-			for(Flight f : model.getFlights(t)){
+		return cplex.eq(expr, 1.0, "ST" + t + "F" + f.id() + "C" + c.id() + "SUM");
+	}
+	
+	// budget * z + sum q, with z + q_fc >= deviation * n_tfc * (share of (t, f, c) sent through r)
+	private IloNumExpr robustProtection(int t, ScreeningResource r) throws IloException{
+		IloNumVar z = cplex.numVar(0.0, Double.MAX_VALUE, IloNumVarType.Float, "z_t" + t + "_r" + r.id());
+		
+		IloNumExpr expr = cplex.prod(z, robustBudget);
+		
+		for(Flight f : model.getFlights(t)){
+			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+				double deviation = robustDeviation * passengerDistribution.get(t, f, c);
+				
+				if(deviation <= 0){
+					continue;
+				}
+				
+				IloNumVar q = cplex.numVar(0.0, Double.MAX_VALUE, IloNumVarType.Float, "q_t" + t + "_r" + r.id() + "_f" + f.id() + "_c" + c.id());
+				
+				IloNumExpr row = cplex.sum(z, q);
+				
 				for(ScreeningOperation o : model.getScreeningOperations()){
-					for(RiskCategory c1 : model.getAdversaryDistribution().keySet()){
-						IloNumExpr expr1 = sMap.get(t).get(f).get(c1).get(o);
-						
-						for(RiskCategory c2 : model.getAdversaryDistribution().keySet()){
-							if(c2.id() - c1.id() == 1){
-								IloNumExpr expr2 = cplex.prod(-1.0, sMap.get(t).get(f).get(c2).get(o));
-								
-								IloNumExpr expr = cplex.sum(expr1, expr2);
-								
-								constraints.add(cplex.eq(expr, 0.0, "T" + t + "F" + f.id() + "O" + o.getID() + "C" + c1.id() + "C" + c2.id()));
-							}
-						}
+					if(o.getResources().contains(r)){
+						row = cplex.sum(row, cplex.prod(sMap.get(t).get(f).get(c).get(o), -deviation));
 					}
 				}
+				
+				constraints.add(cplex.ge(row, 0.0, "RP" + t + "R" + r.id() + "F" + f.id() + "C" + c.id()));
+				
+				expr = cplex.sum(expr, q);
 			}
 		}
+		
+		return expr;
 	}
 	
-	private void sumDefenderScreeningActionRow() throws IloException{
-		for(int t : currentTimeWindows){
-			for(Flight f : model.getFlights(t)){
-				for(RiskCategory c : model.getAdversaryDistribution().keySet()){
-					IloNumExpr expr = cplex.constant(0);
-					
-					for(ScreeningOperation o : model.getScreeningOperations()){
-						expr = cplex.sum(expr, sMap.get(t).get(f).get(c).get(o));
-					}
-					
-					constraints.add(cplex.eq(expr, 1.0, "ST" + t + "F" + f.id() + "C" + c.id() + "SUM"));
-				}
-			}
-		}
+	private RiskCategory firstRiskCategory(){
+		return model.getAdversaryDistribution().keySet().iterator().next();
 	}
 	
 	private void sumDefenderScreeningThroughputRow() throws IloException{
 		Map<ScreeningResource, Integer> screeningResources = model.getScreeningResources();
-		// ADDED flag to not add previous overflow first time through
-		boolean firstRound = true;
-		boolean lastRound = false;
-		int prevt = 0;
-		int counter = 0;
+		
+		screeningThroughputRows = new HashMap<Integer, Map<ScreeningResource, IloRange>>();
+		
+		Integer prevt = null;
+		
 		for(int t : currentTimeWindows){
+			screeningThroughputRows.put(t, new HashMap<ScreeningResource, IloRange>());
+			
 			for(ScreeningResource r : screeningResources.keySet()){
 				IloNumExpr expr = cplex.constant(0);
 				
@@ -579,42 +1561,33 @@ public class DARMSMarginalSolver{
 					}
 				}
 				
-				// ADDED overflow constraints for all time windows, resources
-				if( firstRound ){
-					// If it is the first time window, then don't include overflow from previous round
-					expr = cplex.sum(expr, cplex.negative(ovMap.get(t).get(r)));
+				double capacity = r.capacity() * screeningResources.get(r); //TODO: Adjust capacity according to time granularity
 				
-				} else if( lastRound ) {
-					// If it is the last time window, then don't include overflow from this round
-					expr = cplex.sum(expr, ovMap.get(prevt).get(r));
-					
-				} else {
-					// Otherwise, include negative overflow from this round and
-					// positive overflow from previous round.
+				if(robustDeviation > 0){
+					expr = cplex.sum(expr, robustProtection(t, r));
+				}
+				
+				// Overflow from the previous window is screened in this one: either a variable of the loaded problem or a
+				// constant carried over from an already committed window
+				if(prevt != null){
 					expr = cplex.sum(expr, ovMap.get(prevt).get(r));
-					expr = cplex.sum(expr, cplex.negative(ovMap.get(t).get(r)));
+				}
+				else if(carriedOverflow != null){
+					capacity -= carriedOverflow.get(r);
 				}
 				
-				double capacity = r.capacity() * screeningResources.get(r); //TODO: Adjust capacity according to time granularity
-				System.out.println(r);
-				System.out.println(r.capacity());
-				System.out.println(screeningResources.get(r));
+				// The last window of the day has nowhere to push overflow to
+				if(ovMap.containsKey(t)){
+					expr = cplex.sum(expr, cplex.negative(ovMap.get(t).get(r)));
+				}
 				
+				IloRange row = cplex.le(expr, capacity, "ST" + t + "R" + r.id() + "OVERFLOW");
 				
-				constraints.add(cplex.le(expr, capacity, "ST" + t + "R" + r.id() + "OVERFLOW"));
-			}
-			
-			counter = counter + 1;
-			
-			if( firstRound ){
-				firstRound = false;
-			}
-			if( counter == (currentTimeWindows.size() - 1)){
-				lastRound = true;
+				screeningThroughputRows.get(t).put(r, row);
+				constraints.add(row);
 			}
 			
 			prevt = t;
-			
 		}
 	}
 	
@@ -680,6 +1653,14 @@ public class DARMSMarginalSolver{
 		}
 	}
 	
+	// Protects every throughput row against the worst robustBudget deviations of the window (Bertsimas-Sim). The dual of the
+	// inner maximization adds one z per (t, r) row and one q and one RP row per (t, r, f, c), so the LP does not grow with the
+	// number of scenarios.
+	public void setRobustness(double deviation, double budget){
+		this.robustDeviation = deviation;
+		this.robustBudget = budget;
+	}
+	
 	public void addMarginalBound(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> boundaryCoeff, double upperBoundConst){
 		marginalBounds.put(boundaryCoeff, upperBoundConst);
 	}
@@ -692,11 +1673,31 @@ public class DARMSMarginalSolver{
 		cplex.writeSolution(filename);
 	}
 	
+	public void setExporter(DARMSExporter exporter){
+		this.exporter = exporter;
+	}
+	
+	public void exportProblem(String filename, DARMSExporter.Level level) throws IloException{
+		if(exporter.enabled(level)){
+			String exportFilename = exporter.nextFilename(filename);
+			
+			cplex.exportModel(exportFilename);
+			exporter.exported(exportFilename);
+		}
+	}
+	
+	public void exportSolution(String filename, DARMSExporter.Level level) throws IloException{
+		if(exporter.enabled(level)){
+			String exportFilename = exporter.nextFilename(filename);
+			
+			cplex.writeSolution(exportFilename);
+			exporter.exported(exportFilename);
+		}
+	}
+	
 	public double getDefenderPayoff(){
 		double defenderPayoff = 0.0;
 		
-		Map<RiskCategory, Double> adversaryDistribution = model.getAdversaryDistribution();
-		
 		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
 			defenderPayoff += defenderPayoffs.get(c) * adversaryDistribution.get(c);
 		}
@@ -705,6 +1706,10 @@ public class DARMSMarginalSolver{
 	}
 	
 	public Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> getDefenderScreeningStrategy() throws IloException{
+		if(cplex == null){
+			return defenderScreeningStrategy;
+		}
+		
 		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> defenderScreeningStrategy = new HashMap<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>>();
 		
 		for(int t : currentTimeWindows){
@@ -830,6 +1835,14 @@ public class DARMSMarginalSolver{
 	}
 	
 	public Map<RiskCategory, Map<Integer, Map<Flight, AttackMethod>>> getAdversaryStrategies() throws IloException{
+		if(cplex == null){
+			return adversaryStrategies;
+		}
+		
+		return calculateAdversaryStrategies();
+	}
+	
+	private Map<RiskCategory, Map<Integer, Map<Flight, AttackMethod>>> calculateAdversaryStrategies(){
 		Map<RiskCategory, Map<Integer, Map<Flight, AttackMethod>>> adversaryActionsMap = new HashMap<RiskCategory, Map<Integer, Map<Flight, AttackMethod>>>();
 		
 		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
@@ -883,6 +1896,10 @@ public class DARMSMarginalSolver{
 	
 	
 	public Map<RiskCategory, Double> getAdversaryPayoffs() throws IloException{
+		if(cplex == null){
+			return adversaryPayoffs;
+		}
+		
 		Map<RiskCategory, Double> adversaryPayoffsMap = new HashMap<RiskCategory, Double>();
 		
 		if(zeroSum){
@@ -915,6 +1932,10 @@ public class DARMSMarginalSolver{
 	}
 	
 	public Map<RiskCategory, Double> getDefenderPayoffs() throws IloException{
+		if(cplex == null){
+			return defenderPayoffs;
+		}
+		
 		Map<RiskCategory, Double> defenderPayoffsMap = new HashMap<RiskCategory, Double>();
 		
 		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
@@ -927,8 +1948,6 @@ public class DARMSMarginalSolver{
 	public void writeDefenderPayoffs(String filename) throws Exception{
 		FileWriter fw = new FileWriter(new File(filename));
 		
-		Map<RiskCategory, Double> adversaryDistribution = model.getAdversaryDistribution();
-	
 		List<RiskCategory> riskCategories = new ArrayList<RiskCategory>(adversaryDistribution.keySet());
 		Collections.sort(riskCategories);
 		
@@ -951,35 +1970,11 @@ public class DARMSMarginalSolver{
 		fw.close();
 	}
 	
-	private Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>> getRiskCategoryCoverage() throws IloException{
-		Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>> riskCategoryCoverageMap = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>>();
-	
-		for(int t : currentTimeWindows){
-			riskCategoryCoverageMap.put(t, new HashMap<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>());
-			
-			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
-				riskCategoryCoverageMap.get(t).put(c, new HashMap<Flight, Map<AttackMethod, Double>>());
-				
-				for(Flight f : model.getFlights(t)){
-					riskCategoryCoverageMap.get(t).get(c).put(f, new HashMap<AttackMethod, Double>());
-					
-					for(AttackMethod m : model.getAttackMethods()){
-						riskCategoryCoverageMap.get(t).get(c).get(f).put(m, cplex.getValue(xMap.get(t).get(c).get(f).get(m)));
-					}
-				}
-			}
-		}
-		
-		return riskCategoryCoverageMap;
-	}
-	
 	public double calculateDefenderPayoff(){
 		return calculateDefenderPayoff(defenderScreeningStrategy);
 	}
 	
 	public double calculateDefenderPayoff(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> marginalStrategy){
-		Map<RiskCategory, Double> adversaryDistribution = model.getAdversaryDistribution();
-		
 		double defenderUtility = 0.0;
 		
 		for(RiskCategory c : adversaryDistribution.keySet()){
@@ -991,7 +1986,7 @@ public class DARMSMarginalSolver{
 						double coverage = 0.0;
 						
 						for(ScreeningOperation o : model.getScreeningOperations()){
-							coverage += marginalStrategy.get(t).get(f).get(c).get(o) * o.effectiveness(c, m);
+							coverage += marginalStrategy.get(t).get(f).get(c).get(o) * model.effectiveness(o, c, m);
 						}
 						
 						double utility = (coverage * payoffStructure.defCov(f)) + ((1.0 - coverage)* payoffStructure.defUncov(f));
@@ -1009,6 +2004,72 @@ public class DARMSMarginalSolver{
 		return defenderUtility;
 	}
 	
+	public double calculateDefenderPayoff(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> marginalStrategy, PayoffStructure payoffStructure){
+		List<PayoffStructure> payoffStructures = new ArrayList<PayoffStructure>();
+		
+		payoffStructures.add(payoffStructure);
+		
+		return calculateDefenderPayoffs(marginalStrategy, payoffStructures).get(payoffStructure);
+	}
+	
+	// Evaluates one strategy against many payoff structures without an LP solve. Utility is linear in coverage, so only the
+	// extreme coverages of each (category, flight) over time windows and attack methods are kept and shared by every structure
+	public Map<PayoffStructure, Double> calculateDefenderPayoffs(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> marginalStrategy, List<PayoffStructure> payoffStructures){
+		Map<RiskCategory, Map<Flight, Double>> minimumCoverage = new HashMap<RiskCategory, Map<Flight, Double>>();
+		Map<RiskCategory, Map<Flight, Double>> maximumCoverage = new HashMap<RiskCategory, Map<Flight, Double>>();
+		
+		for(RiskCategory c : adversaryDistribution.keySet()){
+			minimumCoverage.put(c, new HashMap<Flight, Double>());
+			maximumCoverage.put(c, new HashMap<Flight, Double>());
+			
+			for(int t : allTimeWindows){
+				for(Flight f : model.getFlights(t)){
+					for(AttackMethod m : model.getAttackMethods()){
+						double coverage = 0.0;
+						
+						for(ScreeningOperation o : model.getScreeningOperations()){
+							coverage += marginalStrategy.get(t).get(f).get(c).get(o) * model.effectiveness(o, c, m);
+						}
+						
+						if(!minimumCoverage.get(c).containsKey(f) || coverage < minimumCoverage.get(c).get(f)){
+							minimumCoverage.get(c).put(f, coverage);
+						}
+						
+						if(!maximumCoverage.get(c).containsKey(f) || coverage > maximumCoverage.get(c).get(f)){
+							maximumCoverage.get(c).put(f, coverage);
+						}
+					}
+				}
+			}
+		}
+		
+		Map<PayoffStructure, Double> defenderUtilities = new HashMap<PayoffStructure, Double>();
+		
+		for(PayoffStructure ps : payoffStructures){
+			double defenderUtility = 0.0;
+			
+			for(RiskCategory c : adversaryDistribution.keySet()){
+				double worstUtility = Double.POSITIVE_INFINITY;
+				
+				for(Flight f : minimumCoverage.get(c).keySet()){
+					double coverage = (ps.defCov(f) >= ps.defUncov(f)) ? minimumCoverage.get(c).get(f) : maximumCoverage.get(c).get(f);
+					
+					double utility = (coverage * ps.defCov(f)) + ((1.0 - coverage)* ps.defUncov(f));
+					
+					if(utility < worstUtility){
+						worstUtility = utility;
+					}
+				}
+				
+				defenderUtility += adversaryDistribution.get(c) * worstUtility;
+			}
+			
+			defenderUtilities.put(ps, defenderUtility);
+		}
+		
+		return defenderUtilities;
+	}
+	
 	public double calculateOverflowPassengers(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> screeningStrategy){
 		double totalOverflowPassengers = 0.0;
 	
@@ -1039,6 +2100,10 @@ public class DARMSMarginalSolver{
 	}
 	
 	public Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>> calculateRiskCategoryCoverage() throws IloException{
+		if(cplex == null){
+			return riskCategoryCoverage;
+		}
+		
 		Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>> riskCategoryCoverageMap = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>>();
 	
 		for(int t : currentTimeWindows){
@@ -1054,7 +2119,7 @@ public class DARMSMarginalSolver{
 						double probability = 0.0;
 						
 						for(ScreeningOperation o : model.getScreeningOperations()){
-							probability += cplex.getValue(sMap.get(t).get(f).get(c).get(o)) * o.effectiveness(c, m);
+							probability += cplex.getValue(sMap.get(t).get(f).get(c).get(o)) * model.effectiveness(o, c, m);
 						}
 						
 						for(PostScreeningResource p : model.getPostScreeningResources().keySet()){
@@ -1098,7 +2163,7 @@ public class DARMSMarginalSolver{
 					for(AttackMethod m : attackMethods){
 						double coverage = riskCategoryCoverage.get(t).get(c).get(f).get(m);
 						double payoff = coverage * payoffStructure.attCov(f) + ((1.0 - coverage) * payoffStructure.attUncov(f));
-						double utility = payoff * model.getAdversaryDistribution().get(c);
+						double utility = payoff * adversaryDistribution.get(c);
 						
 						line += ", " + coverage + ", " + payoff + ", " + utility;
 					}
@@ -43,6 +43,13 @@ public class DARMSOneNormSolver{
 	
 	private Map<PureStrategy, IloRange> constraintMap;
 	
+	private boolean solved;
+	
+	// Columns whose probability stays at zero for columnAgingLimit consecutive solves are moved to inactivePool
+	private int columnAgingLimit;
+	private Map<PureStrategy, Integer> columnAges;
+	private List<PureStrategy> inactivePool;
+	
 	private static final int MM = 100000;
 
 	public DARMSOneNormSolver(DARMSModel model) throws Exception{
@@ -51,6 +58,8 @@ public class DARMSOneNormSolver{
 		pureStrategyList = new ArrayList<PureStrategy>();
 		constraints = new ArrayList<IloRange>();
 		constraintMap = new HashMap<PureStrategy, IloRange>();
+		columnAges = new HashMap<PureStrategy, Integer>();
+		inactivePool = new ArrayList<PureStrategy>();
 		flights = new HashMap<Integer, List<Flight>>();
 		
 		for(int t : model.getTimeWindows()){
@@ -81,7 +90,109 @@ public class DARMSOneNormSolver{
 	}
 	
 	public void solve() throws Exception{
-		cplex.solve();
+		if(columnAgingLimit > 0){
+			purgeInactiveColumns();
+		}
+		
+		solved = cplex.solve() && cplex.getStatus() == IloCplex.Status.Optimal;
+		
+		if(columnAgingLimit > 0 && solved){
+			updateColumnAges();
+		}
+	}
+	
+	// False when the last solve() stopped at the time limit before reaching the optimum
+	public boolean isSolved(){
+		return solved;
+	}
+	
+	public void setTimeLimit(double seconds) throws IloException{
+		cplex.setParam(IloCplex.DoubleParam.TiLim, seconds);
+	}
+	
+	// Every later solve() stops as soon as the aborter is aborted, including one already running in another thread
+	public void setAborter(IloCplex.Aborter aborter) throws IloException{
+		cplex.use(aborter);
+	}
+	
+	public void setColumnAging(int columnAgingLimit){
+		this.columnAgingLimit = columnAgingLimit;
+	}
+	
+	private void updateColumnAges() throws IloException{
+		for(PureStrategy p : pureStrategyList){
+			if(cplex.getDual(constraintMap.get(p)) > DARMSModel.EPSILON){
+				columnAges.put(p, 0);
+			}
+			else{
+				columnAges.put(p, columnAges.get(p) + 1);
+			}
+		}
+	}
+	
+	private void purgeInactiveColumns() throws IloException{
+		List<PureStrategy> purged = new ArrayList<PureStrategy>();
+		
+		for(PureStrategy p : pureStrategyList){
+			if(columnAges.get(p) >= columnAgingLimit){
+				purged.add(p);
+			}
+		}
+		
+		// Always keep at least one column so the master stays bounded
+		if(purged.size() == pureStrategyList.size() && !purged.isEmpty()){
+			purged.remove(purged.size() - 1);
+		}
+		
+		for(PureStrategy p : purged){
+			cplex.remove(constraintMap.get(p));
+			
+			pureStrategyList.remove(p);
+			inactivePool.add(p);
+		}
+	}
+	
+	// Re-admit the pooled columns violated by the current y, u. Returns the number of columns moved back into the master.
+	public int priceInactiveColumns() throws Exception{
+		List<PureStrategy> violated = new ArrayList<PureStrategy>();
+		
+		double u = cplex.getValue(uVar);
+		
+		for(PureStrategy p : inactivePool){
+			double value = u;
+			
+			for(int t : currentTimeWindows){
+				for(Flight f : flights.get(t)){
+					for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+						for(ScreeningOperation o : model.getScreeningOperations()){
+							value += p.get(t, f, c, o) * cplex.getValue(yVarMap.get(t).get(f).get(c).get(o));
+						}
+					}
+				}
+			}
+			
+			if(value > DARMSModel.EPSILON){
+				violated.add(p);
+			}
+		}
+		
+		for(PureStrategy p : violated){
+			readmitPureStrategy(p);
+		}
+		
+		return violated.size();
+	}
+	
+	private void readmitPureStrategy(PureStrategy p) throws IloException{
+		inactivePool.remove(p);
+		pureStrategyList.add(p);
+		columnAges.put(p, 0);
+		
+		cplex.add(constraintMap.get(p));
+	}
+	
+	public boolean containsPureStrategy(PureStrategy p){
+		return pureStrategyList.contains(p);
 	}
 	
 	private void initObjective() throws IloException{
@@ -158,8 +269,30 @@ public class DARMSOneNormSolver{
 		}
 	}
 	
+	public void setTrustRegion(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> center, double delta) throws Exception{
+		for(int t : currentTimeWindows){
+			for(Flight f : flights.get(t)){
+				for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+					for(ScreeningOperation o : model.getScreeningOperations()){
+						double y = center.get(t).get(f).get(c).get(o);
+						
+						yVarMap.get(t).get(f).get(c).get(o).setLB(Math.max(-1, y - delta));
+						yVarMap.get(t).get(f).get(c).get(o).setUB(Math.min(1, y + delta));
+					}
+				}
+			}
+		}
+	}
+	
 	public void addPureStrategy(PureStrategy p) throws Exception{
+		// PureStrategy has no content hashCode, so the row is looked up through the pooled instance
+		if(inactivePool.contains(p)){
+			readmitPureStrategy(inactivePool.get(inactivePool.indexOf(p)));
+			return;
+		}
+		
 		pureStrategyList.add(p);
+		columnAges.put(p, 0);
 		
 		IloNumExpr expr = uVar;
 		
@@ -190,6 +323,10 @@ public class DARMSOneNormSolver{
 			reducedCosts.put(p, cplex.getDual(constraintMap.get(p)));
 		}
 		
+		for(PureStrategy p : inactivePool){
+			reducedCosts.put(p, 0.0);
+		}
+		
 		return reducedCosts;
 	}
 	
@@ -352,6 +489,10 @@ public class DARMSOneNormSolver{
 		return pureStrategyList.size();
 	}
 	
+	public int getNumberInactivePureStrategies(){
+		return inactivePool.size();
+	}
+	
 	public void writeProblem(String filename) throws IloException{
 		cplex.exportModel(filename);
 	}
@@ -1,10 +1,13 @@
 package solvers;
 import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import utilities.DARMSExporter;
 import utilities.DARMSPureStrategyGenerator;
 
 import models.DARMSModel;
@@ -17,6 +20,8 @@ import models.ScreeningOperation;
 public class DARMSOptimalSolver{
 	protected static final double oracleTerminateThreshold = 0.5;
 	
+	public enum Stabilization { NONE, WENTGES, BOXSTEP }
+	
 	private DARMSModel model;
 	private DARMSMarginalSolver marginalSolver;
 	private DARMSOneNormSolver oneNormSolver;
@@ -39,6 +44,26 @@ public class DARMSOptimalSolver{
 	
 	private int iterationCutoff;
 	
+	private Stabilization stabilization = Stabilization.NONE;
+	private double wentgesAlpha = 0.5;
+	private double boxStepDelta = 0.25;
+	
+	private int columnAgingLimit;
+	
+	private int mispricings;
+	private double bestLowerBound;
+	private double lastSlaveReducedCost;
+	
+	private long timeBudget;
+	private long deadline;
+	private volatile boolean cancelled;
+	private volatile IloCplex.Aborter aborter;
+	private boolean stoppedEarly;
+	
+	private Map<PureStrategy, Double> bestMixedStrategy;
+	private double bestOneNormDistance;
+	private double bestPayoffGap;
+	
 	public DARMSOptimalSolver(DARMSModel model, int warmStartIterations, int iterationCutoff, boolean decomposed, boolean betterResponse){
 		this.model = model;
 		this.warmStartIterations = warmStartIterations;
@@ -58,10 +83,56 @@ public class DARMSOptimalSolver{
 		this.warmStartPureStrategies = warmStartPureStrategies;
 	}
 	
+	// WENTGES: price at alpha * center + (1 - alpha) * y. BOXSTEP: bound y to a box of half-width delta around the center
+	public void setStabilization(Stabilization stabilization, double parameter){
+		this.stabilization = stabilization;
+		
+		if(stabilization == Stabilization.WENTGES){
+			this.wentgesAlpha = parameter;
+		}
+		else if(stabilization == Stabilization.BOXSTEP){
+			this.boxStepDelta = parameter;
+		}
+	}
+	
+	// Master columns unused for this many consecutive solves are moved to a pool that is priced before the slave. Zero disables aging
+	public void setColumnAging(int columnAgingLimit){
+		this.columnAgingLimit = columnAgingLimit;
+	}
+	
+	// Wall-clock budget for solve() in seconds, including the marginal solve. Every master and slave solve is limited to the
+	// time left; the marginal LP is always solved to optimality since the oracle needs it. A non-positive budget means no limit
+	public void setTimeBudget(double seconds){
+		this.timeBudget = (long)(seconds * 1000);
+	}
+	
+	// Stops a running solve() and returns its best mixed strategy; safe to call from any thread. A master or slave solve in
+	// progress is aborted at once, while the marginal LP at the start is still solved to optimality
+	public void cancel(){
+		cancelled = true;
+		
+		IloCplex.Aborter currentAborter = aborter;
+		
+		if(currentAborter != null){
+			currentAborter.abort();
+		}
+	}
+	
 	public void solve() throws Exception{
+		deadline = (timeBudget > 0) ? System.currentTimeMillis() + timeBudget : Long.MAX_VALUE;
+		cancelled = false;
+		aborter = new IloCplex.Aborter();
+		stoppedEarly = false;
+		
+		bestMixedStrategy = null;
+		bestOneNormDistance = Double.POSITIVE_INFINITY;
+		bestPayoffGap = Double.POSITIVE_INFINITY;
+		
 		marginalSolver = new DARMSMarginalSolver(model, true, decomposed, true, false);
 		
 		oneNormSolver = new DARMSOneNormSolver(model);
+		oneNormSolver.setColumnAging(columnAgingLimit);
+		oneNormSolver.setAborter(aborter);
 		
 		if(decomposed){
 			betterResponseSlaveSolver = new DARMSDecomposedSlaveSolver(model, betterResponse);
@@ -84,10 +155,13 @@ public class DARMSOptimalSolver{
 			}
 		}
 		
+		betterResponseSlaveSolver.setAborter(aborter);
+		
 		//double oneNormDistance = Double.POSITIVE_INFINITY;
 		
 		masterIterations = 0;
 		slaveIterations = 0;
+		mispricings = 0;
 		totalMarginalSolveTime = 0;
 		totalColumnGenerationTime = 0;
 		
@@ -144,7 +218,23 @@ public class DARMSOptimalSolver{
 				betterResponseSlaveSolver.initializeReducedCosts();
 	           
 	        	//slaveSolver.writeProblem(lpFolder + "/slave_iter" + masterIterations +  "_p" + oneNormSolver.getNumberPureStrategies() + ".lp");
-	        	betterResponseSlaveSolver.solve();
+	        	betterResponseSlaveSolver.setTimeLimit(remainingSeconds());
+	        	
+	        	try{
+	        		betterResponseSlaveSolver.solve();
+	        	}
+	        	catch(Exception e){
+	        		if(!deadlinePassed()){
+	        			throw e;
+	        		}
+	        	}
+	        	
+	        	// No column yet, so there is no strategy to fall back on
+	        	if(deadlinePassed()){
+	        		stoppedEarly = true;
+	        		return oracleIterN;
+	        	}
+	        	
 	        	//slaveSolver.writeSolution(lpFolder + "/slave_iter" + masterIterations +  "_p" + oneNormSolver.getNumberPureStrategies() + "_sol.txt");
 	        	
 	        	PureStrategy p = betterResponseSlaveSolver.getPureStrategy();
@@ -177,10 +267,16 @@ public class DARMSOptimalSolver{
             pureStrategyAdded = true;
         }
 		
+		// Center of stabilization: the dual point with the best Lagrangian bound m'y + min_s(-y's) seen so far
+		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> stabilityCenter = null;
+		double delta = boxStepDelta;
+		bestLowerBound = Double.NEGATIVE_INFINITY;
+		
 		while(!oracleSolved){
 			try{
 				//oneNormSolver.writeProblem(lpFolder + "/onenorm_iter" + masterIterations +  "_p" + oneNormSolver.getNumberPureStrategies() + ".lp");
 				
+				oneNormSolver.setTimeLimit(remainingSeconds());
 				oneNormSolver.solve();
 				
 				//oneNormSolver.writeSolution(lpFolder + "/onenorm_iter" + numIter +  "_p" + oneNormSolver.getNumberPureStrategies() + "_sol.txt");
@@ -190,46 +286,81 @@ public class DARMSOptimalSolver{
 				System.err.println("Unable to solve the oracle!");
 			}
 			
-			// Set the weight of each target for the slave MILP
-			Map<Integer,Map<Flight,Map<RiskCategory,Map<ScreeningOperation,Double>>>> currentReducedCosts = oneNormSolver.getReducedCosts();			
-			
-			betterResponseSlaveSolver.setReducedCosts(currentReducedCosts);		
+			if(oneNormSolver.isSolved()){
+				updateBestMixedStrategy(marginal);
+			}
 			
-			//System.out.println(lpFolder + "/slave_iter" + numIter +  "_p" + oneNormSolver.getNumberPureStrategies() + ".lp");
-			//slaveSolver.writeProblem(lpFolder + "/slave_iter" + masterIterations +  "_p" + oneNormSolver.getNumberPureStrategies() + ".lp");				
-							
-			try{
-				betterResponseSlaveSolver.solve();
+			if(deadlinePassed()){
+				stoppedEarly = true;
+				break;
 			}
-			catch(Exception e){
-				e.printStackTrace();
-				System.err.println("Unable to solve the slave!");
+			
+			// Columns purged from the master are priced first; only call the slave when none of them is violated
+			if(oneNormSolver.priceInactiveColumns() > 0){
+				// The master changed, so the solve after the loop must run even if the cutoff ends the loop here
+				pureStrategyAdded = true;
+				
+				// Readmissions count as oracle iterations so a purge/readmit cycle still ends at the cutoff
+				if(oracleIterN >= iterationCutoff){
+					oracleSolved = true;
+				}
+				
+				oracleIterN++;
+				continue;
 			}
 			
-			//slaveSolver.writeSolution(lpFolder + "/slave_iter" + masterIterations +  "_p" + oneNormSolver.getNumberPureStrategies() + "_sol.txt");
+			Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> masterDuals = oneNormSolver.getConstraintCoeff();
+			
+			double masterConstant = oneNormSolver.getConstraintConst();
+			double masterObjective = oneNormSolver.getOneNormDistance();
 			
-			PureStrategy p = betterResponseSlaveSolver.getPureStrategy();	
+			Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> separationPoint = masterDuals;
 			
-			double slaveReducedCost = betterResponseSlaveSolver.getReducedCost();
+			// Center the master's current box was built around; the bound updates below may move stabilityCenter before the box test
+			Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> boxCenter = stabilityCenter;
 			
-			//System.out.println("Iteration: " + oracleIterN + " Criteria:" + (slaveReducedCost + oneNormSolver.getReducedCostConstant()));
+			if(stabilization == Stabilization.WENTGES && stabilityCenter != null){
+				separationPoint = combine(stabilityCenter, masterDuals, wentgesAlpha);
+			}
+			
+			PureStrategy p = priceColumn(separationPoint, oracleIterN);
 			
 			if(p == null){
-				bestResponseSlaveSolver.setReducedCosts(currentReducedCosts);		
-				bestResponseSlaveSolver.solve();
+				stoppedEarly = true;
+				break;
+			}
+			
+			double lowerBound = dot(marginal, separationPoint) + lastSlaveReducedCost;
+			
+			if(lowerBound > bestLowerBound){
+				bestLowerBound = lowerBound;
+				stabilityCenter = separationPoint;
+			}
+			
+			// Reduced cost of the column with respect to the unstabilized master duals
+			double curReducedCost = -(columnValue(p, masterDuals) + masterConstant);
+			
+			if(separationPoint != masterDuals && curReducedCost >= -oracleTerminateThreshold){
+				// Mis-pricing: the smoothed point produced no improving column, so price the master duals directly
+				mispricings++;
 				
-				bestResponseSlaveSolver.writeProblem("BestResponse.lp");
+				p = priceColumn(masterDuals, oracleIterN);
 				
-				p = bestResponseSlaveSolver.getPureStrategy();
+				if(p == null){
+					stoppedEarly = true;
+					break;
+				}
+				
+				lowerBound = dot(marginal, masterDuals) + lastSlaveReducedCost;
 				
-				slaveReducedCost = bestResponseSlaveSolver.getReducedCost();
+				if(lowerBound > bestLowerBound){
+					bestLowerBound = lowerBound;
+					stabilityCenter = masterDuals;
+				}
 				
-				System.out.println("Iteration " + oracleIterN + ": Better Response Failed. Going to best response.");
-				System.out.println("Iteration: " + oracleIterN + " Slave Reduced Costs: " + slaveReducedCost);
+				curReducedCost = lastSlaveReducedCost - masterConstant;
 			}
 			
-			double curReducedCost = slaveReducedCost + oneNormSolver.getReducedCostConstant();
-			
 			if(oracleIterN % 10 == 0){
 				double currentDefenderUtility = marginalSolver.calculateDefenderPayoff(oneNormSolver.getMarginalStrategy());
 				
@@ -240,13 +371,35 @@ public class DARMSOptimalSolver{
 				previousDefenderUtility = currentDefenderUtility;
 			}
 			
-			if(curReducedCost >= -oracleTerminateThreshold || oracleIterN >= iterationCutoff){
+			if(stabilization == Stabilization.BOXSTEP){
+				if(curReducedCost >= -oracleTerminateThreshold){
+					if(delta >= 2.0 || boxCenter == null || !trustRegionBinding(masterDuals, boxCenter, delta)){
+						// The box is inactive at the master optimum, so the master optimum is also optimal without it
+						oracleSolved = true;
+					}
+					else{
+						delta *= 2.0;
+						stabilityCenter = masterDuals;
+					}
+				}
+				
+				oneNormSolver.setTrustRegion(stabilityCenter, delta);
+			}
+			else if(curReducedCost >= -oracleTerminateThreshold){
 				// optimal solution of oralce has found
-				oracleSolved = true;	
+				oracleSolved = true;
+			}
+			else if(!betterResponse && masterObjective - bestLowerBound <= oracleTerminateThreshold){
+				// The master objective is within the threshold of the best Lagrangian bound
+				oracleSolved = true;
+			}
+			
+			if(oracleIterN >= iterationCutoff){
+				oracleSolved = true;
 			}
 			
 			// Add the newly generated joint schedule to the list 
-			if(!oneNormSolver.getPureStrategyList().contains(p)){					
+			if(!oneNormSolver.containsPureStrategy(p)){					
 				oneNormSolver.addPureStrategy(p);	
 				pureStrategyAdded = true;
 			}
@@ -258,9 +411,27 @@ public class DARMSOptimalSolver{
 			oracleIterN++;				
 		}
 		
-		if(pureStrategyAdded){
+		if(stabilization == Stabilization.BOXSTEP){
+			oneNormSolver.resetWeight();
+			pureStrategyAdded = true;
+		}
+		
+		if(pureStrategyAdded && !stoppedEarly){
 			try{				
-				oneNormSolver.solve();											
+				oneNormSolver.setTimeLimit(remainingSeconds());
+				oneNormSolver.solve();
+				
+				while(oneNormSolver.isSolved() && oneNormSolver.priceInactiveColumns() > 0){
+					oneNormSolver.setTimeLimit(remainingSeconds());
+					oneNormSolver.solve();
+				}
+				
+				if(oneNormSolver.isSolved()){
+					updateBestMixedStrategy(marginal);
+				}
+				else{
+					stoppedEarly = true;
+				}
 			}
 			catch(Exception e){
 				e.printStackTrace();
@@ -271,6 +442,170 @@ public class DARMSOptimalSolver{
 		return oracleIterN;
 	}
 	
+	// Time left before the deadline as a CPLEX time limit; 1e75 is the CPLEX default, i.e. no limit
+	private double remainingSeconds(){
+		if(deadline == Long.MAX_VALUE){
+			return 1e75;
+		}
+		
+		return Math.max(deadline - System.currentTimeMillis(), 0) / 1000.0;
+	}
+	
+	private boolean deadlinePassed(){
+		return cancelled || System.currentTimeMillis() >= deadline;
+	}
+	
+	// Keep the mixed strategy of the current master if it is implementable (its probabilities sum to one) and closer to the marginal than the best so far
+	private void updateBestMixedStrategy(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> marginal) throws Exception{
+		Map<PureStrategy, Double> mixedStrategy = oneNormSolver.getMixedStrategy();
+		
+		double totalProbability = 0.0;
+		
+		for(double probability : mixedStrategy.values()){
+			totalProbability += probability;
+		}
+		
+		if(Math.abs(totalProbability - 1.0) > DARMSModel.EPSILON){
+			return;
+		}
+		
+		double oneNormDistance = calculateOneNormDistance(marginal, oneNormSolver.getOneNormProjection());
+		
+		if(oneNormDistance < bestOneNormDistance){
+			bestMixedStrategy = mixedStrategy;
+			bestOneNormDistance = oneNormDistance;
+			bestPayoffGap = marginalDefenderPayoff - marginalSolver.calculateDefenderPayoff(oneNormSolver.getMarginalStrategy());
+		}
+	}
+	
+	private PureStrategy priceColumn(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> duals, int oracleIterN) throws Exception{
+		// Set the weight of each target for the slave MILP
+		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> currentReducedCosts = combine(duals, duals, -1.0, 0.0);
+		
+		betterResponseSlaveSolver.setReducedCosts(currentReducedCosts);
+		betterResponseSlaveSolver.setTimeLimit(remainingSeconds());
+		
+		try{
+			betterResponseSlaveSolver.solve();
+		}
+		catch(Exception e){
+			if(!deadlinePassed()){
+				e.printStackTrace();
+				System.err.println("Unable to solve the slave!");
+			}
+		}
+		
+		// A slave stopped at the limit gives no valid reduced cost, so its column cannot be used to decide termination
+		if(deadlinePassed()){
+			return null;
+		}
+		
+		PureStrategy p = betterResponseSlaveSolver.getPureStrategy();	
+		
+		lastSlaveReducedCost = betterResponseSlaveSolver.getReducedCost();
+		
+		if(p == null){
+			bestResponseSlaveSolver.setReducedCosts(currentReducedCosts);		
+			bestResponseSlaveSolver.solve();
+			
+			DARMSExporter exporter = DARMSExporter.getDefault();
+			
+			if(exporter.enabled(DARMSExporter.Level.ALL)){
+				String problemFilename = exporter.nextFilename("BestResponse.lp");
+				
+				bestResponseSlaveSolver.writeProblem(problemFilename);
+				exporter.exported(problemFilename);
+			}
+			
+			p = bestResponseSlaveSolver.getPureStrategy();
+			
+			lastSlaveReducedCost = bestResponseSlaveSolver.getReducedCost();
+			
+			System.out.println("Iteration " + oracleIterN + ": Better Response Failed. Going to best response.");
+			System.out.println("Iteration: " + oracleIterN + " Slave Reduced Costs: " + lastSlaveReducedCost);
+		}
+		
+		return p;
+	}
+	
+	private static Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> combine(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> y1, Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> y2, double alpha){
+		return combine(y1, y2, alpha, 1.0 - alpha);
+	}
+	
+	private static Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> combine(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> y1, Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> y2, double alpha1, double alpha2){
+		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> y = new HashMap<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>>();
+		
+		for(int t : y1.keySet()){
+			y.put(t, new HashMap<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>());
+			
+			for(Flight f : y1.get(t).keySet()){
+				y.get(t).put(f, new HashMap<RiskCategory, Map<ScreeningOperation, Double>>());
+				
+				for(RiskCategory c : y1.get(t).get(f).keySet()){
+					y.get(t).get(f).put(c, new HashMap<ScreeningOperation, Double>());
+					
+					for(ScreeningOperation o : y1.get(t).get(f).get(c).keySet()){
+						y.get(t).get(f).get(c).put(o, alpha1 * y1.get(t).get(f).get(c).get(o) + alpha2 * y2.get(t).get(f).get(c).get(o));
+					}
+				}
+			}
+		}
+		
+		return y;
+	}
+	
+	private static double dot(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> marginal, Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> y){
+		double value = 0.0;
+		
+		for(int t : y.keySet()){
+			for(Flight f : y.get(t).keySet()){
+				for(RiskCategory c : y.get(t).get(f).keySet()){
+					for(ScreeningOperation o : y.get(t).get(f).get(c).keySet()){
+						value += marginal.get(t).get(f).get(c).get(o) * y.get(t).get(f).get(c).get(o);
+					}
+				}
+			}
+		}
+		
+		return value;
+	}
+	
+	private static double columnValue(PureStrategy p, Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> y){
+		double value = 0.0;
+		
+		for(int t : y.keySet()){
+			for(Flight f : y.get(t).keySet()){
+				for(RiskCategory c : y.get(t).get(f).keySet()){
+					for(ScreeningOperation o : y.get(t).get(f).get(c).keySet()){
+						value += p.get(t, f, c, o) * y.get(t).get(f).get(c).get(o);
+					}
+				}
+			}
+		}
+		
+		return value;
+	}
+	
+	private static boolean trustRegionBinding(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> y, Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> center, double delta){
+		for(int t : y.keySet()){
+			for(Flight f : y.get(t).keySet()){
+				for(RiskCategory c : y.get(t).get(f).keySet()){
+					for(ScreeningOperation o : y.get(t).get(f).get(c).keySet()){
+						double value = y.get(t).get(f).get(c).get(o);
+						double lowerBound = center.get(t).get(f).get(c).get(o) - delta;
+						double upperBound = center.get(t).get(f).get(c).get(o) + delta;
+						
+						if((lowerBound > -1.0 && value <= lowerBound + DARMSModel.EPSILON) || (upperBound < 1.0 && value >= upperBound - DARMSModel.EPSILON)){
+							return true;
+						}
+					}
+				}
+			}
+		}
+		
+		return false;
+	}
+	
 	public double getMarginalDefenderPayoff(){
 		return marginalSolver.getDefenderPayoff();
 	}
@@ -287,6 +622,22 @@ public class DARMSOptimalSolver{
 		return slaveIterations;
 	}
 	
+	public int getMispricings(){
+		return mispricings;
+	}
+	
+	public double getLowerBound(){
+		return bestLowerBound;
+	}
+	
+	public double getMarginalSolveTime(){
+		return totalMarginalSolveTime;
+	}
+	
+	public double getColumnGenerationTime(){
+		return totalColumnGenerationTime;
+	}
+	
 	public double getOneNormDistance() throws IloException{
 		return oneNormSolver.getOneNormDistance();
 	}
@@ -295,6 +646,24 @@ public class DARMSOptimalSolver{
 		return oneNormSolver.getMixedStrategy();
 	}
 	
+	// Best implementable mixed strategy seen during the last solve(), with its 1-norm distance to the marginal and its defender payoff gap
+	public Map<PureStrategy, Double> getBestMixedStrategy(){
+		return bestMixedStrategy;
+	}
+	
+	public double getBestOneNormDistance(){
+		return bestOneNormDistance;
+	}
+	
+	public double getBestPayoffGap(){
+		return bestPayoffGap;
+	}
+	
+	// True if the last solve() ended on the time budget or on cancel() rather than on convergence
+	public boolean stoppedEarly(){
+		return stoppedEarly;
+	}
+	
 	public List<PureStrategy> getWarmStartPureStrategies(){
 		return warmStartPureStrategies;
 	}
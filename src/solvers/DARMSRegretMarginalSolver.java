@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +57,13 @@ public class DARMSRegretMarginalSolver{
 	
 	private List<PassengerDistribution> passengerDistributionList;
 	
+	// Scenarios with rows in the loaded LP; all of them unless scenario generation is on
+	private List<PassengerDistribution> activeScenarios;
+	
+	private int initialScenarios;
+	private int scenariosPerIteration;
+	private int scenarioIterations;
+	
 	private List<Integer> allTimeWindows;
 	private List<Integer> currentTimeWindows;
 	
@@ -85,6 +93,22 @@ public class DARMSRegretMarginalSolver{
 		}
 	}
 	
+	// Constraint generation over the scenario pool: start from the first initialScenarios, then repeatedly add the
+	// scenariosPerIteration scenarios whose regret under the current strategy most exceeds the LP's max regret
+	public void setScenarioGeneration(int initialScenarios, int scenariosPerIteration){
+		this.initialScenarios = initialScenarios;
+		this.scenariosPerIteration = scenariosPerIteration;
+	}
+	
+	// Penalty per overflow passenger in the regret rows; applies from the next solve()
+	public void setOverflowPenalty(double overflowPenalty){
+		this.overflowPenalty = overflowPenalty;
+		
+		for(ScreeningResource r : model.getScreeningResources().keySet()){
+			overflowPenalties.put(r, overflowPenalty);
+		}
+	}
+	
 	private void verifyZeroSum() throws Exception{
 		for(Flight f : model.getFlights()){
 			int defCov = f.getDefCovPayoff();
@@ -110,6 +134,13 @@ public class DARMSRegretMarginalSolver{
 		
 		this.currentTimeWindows = timeWindows;
 		
+		if(initialScenarios > 0){
+			activeScenarios = new ArrayList<PassengerDistribution>(passengerDistributionList.subList(0, Math.min(initialScenarios, passengerDistributionList.size())));
+		}
+		else{
+			activeScenarios = new ArrayList<PassengerDistribution>(passengerDistributionList);
+		}
+		
 		initVars();
 		initConstraints();
 		initObjective();
@@ -118,20 +149,39 @@ public class DARMSRegretMarginalSolver{
 	private void initVars() throws IloException{
 		List<IloNumVar> varList = new ArrayList<IloNumVar>();
 		
+		// Static screening shares one s variable per (t, c, o) among all flights of a window instead of adding equality rows
 		for(int t : currentTimeWindows){
 			sMap.put(t, new HashMap<Flight, Map<RiskCategory, Map<ScreeningOperation, IloNumVar>>>());
 			
+			Map<RiskCategory, Map<ScreeningOperation, IloNumVar>> sharedVars = new HashMap<RiskCategory, Map<ScreeningOperation, IloNumVar>>();
+			
 			for(Flight f : model.getFlights(t)){
 				sMap.get(t).put(f, new HashMap<RiskCategory, Map<ScreeningOperation, IloNumVar>>());
 				
 				for(RiskCategory c : model.getAdversaryDistribution().keySet()){
 					sMap.get(t).get(f).put(c, new HashMap<ScreeningOperation, IloNumVar>());
 					
-					for(ScreeningOperation o : model.getScreeningOperations()){
-						IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_t" + t + "_f" +  f.id() + "_c" + c.id() + "_o" + o.getID());
+					if(!model.flightByFlight() && !sharedVars.containsKey(c)){
+						sharedVars.put(c, new HashMap<ScreeningOperation, IloNumVar>());
+						
+						for(ScreeningOperation o : model.getScreeningOperations()){
+							IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_t" + t + "_c" + c.id() + "_o" + o.getID());
+							
+							sharedVars.get(c).put(o, var);
+							varList.add(var);
+						}
+					}
 					
-						sMap.get(t).get(f).get(c).put(o, var);
-						varList.add(var);
+					for(ScreeningOperation o : model.getScreeningOperations()){
+						if(!model.flightByFlight()){
+							sMap.get(t).get(f).get(c).put(o, sharedVars.get(c).get(o));
+						}
+						else{
+							IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_t" + t + "_f" +  f.id() + "_c" + c.id() + "_o" + o.getID());
+						
+							sMap.get(t).get(f).get(c).put(o, var);
+							varList.add(var);
+						}
 					}
 				}
 			}
@@ -156,24 +206,8 @@ public class DARMSRegretMarginalSolver{
 			}
 		}
 		
-		Map<ScreeningResource, Integer> screeningResources = model.getScreeningResources();
-		
-		for(PassengerDistribution distribution : passengerDistributionList){
-			oMap.put(distribution, new HashMap<Integer, Map<ScreeningResource, IloNumVar>>());
-			
-			for(int t : currentTimeWindows){
-				oMap.get(distribution).put(t, new HashMap<ScreeningResource, IloNumVar>());
-				
-				for(ScreeningResource r : screeningResources.keySet()){
-					double maxOverflowCapacity = maxOverflowPercentage * r.capacity() * screeningResources.get(r);
-					
-					IloNumVar var = cplex.numVar(0.0, maxOverflowCapacity, IloNumVarType.Float, "o_d" + distribution.id() + "_t" + t + "_r" + r.id());
-					
-					oMap.get(distribution).get(t).put(r, var);
-					
-					varList.add(var);
-				}
-			}
+		for(PassengerDistribution distribution : activeScenarios){
+			varList.addAll(overflowVars(distribution));
 		}
 		
 		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
@@ -193,6 +227,30 @@ public class DARMSRegretMarginalSolver{
 		cplex.add(varList.toArray(v));
 	}
 	
+	private List<IloNumVar> overflowVars(PassengerDistribution distribution) throws IloException{
+		List<IloNumVar> varList = new ArrayList<IloNumVar>();
+		
+		Map<ScreeningResource, Integer> screeningResources = model.getScreeningResources();
+		
+		oMap.put(distribution, new HashMap<Integer, Map<ScreeningResource, IloNumVar>>());
+		
+		for(int t : currentTimeWindows){
+			oMap.get(distribution).put(t, new HashMap<ScreeningResource, IloNumVar>());
+			
+			for(ScreeningResource r : screeningResources.keySet()){
+				double maxOverflowCapacity = maxOverflowPercentage * r.capacity() * screeningResources.get(r);
+				
+				IloNumVar var = cplex.numVar(0.0, maxOverflowCapacity, IloNumVarType.Float, "o_d" + distribution.id() + "_t" + t + "_r" + r.id());
+				
+				oMap.get(distribution).get(t).put(r, var);
+				
+				varList.add(var);
+			}
+		}
+		
+		return varList;
+	}
+	
 	private void initConstraints() throws IloException{
 		constraints = new ArrayList<IloRange>();
 		
@@ -204,10 +262,6 @@ public class DARMSRegretMarginalSolver{
 		
 		setZeroSumDefenderPayoffRow();
 		
-		if(!model.flightByFlight()){
-			setStaticScreening();
-		}
-		
 		IloRange[] c = new IloRange[constraints.size()];
 
 		cplex.add(constraints.toArray(c));
@@ -218,6 +272,8 @@ public class DARMSRegretMarginalSolver{
 	}
 	
 	public void solve() throws Exception{
+		scenarioIterations = 0;
+		
 		defenderScreeningStrategy = new HashMap<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>>();
 		riskCategoryCoverage = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>>();
 		defenderPayoffs = new HashMap<RiskCategory, Double>();
@@ -235,7 +291,7 @@ public class DARMSRegretMarginalSolver{
 				
 				loadProblem(timeWindow);
 				
-				cplex.solve();
+				solveScenarios();
 				
 				if(!cplex.isPrimalFeasible()){
 					throw new Exception("Infeasible. Capacity constraints exceeded. Time Window: " + t);
@@ -260,7 +316,7 @@ public class DARMSRegretMarginalSolver{
 		else{
 			loadProblem(allTimeWindows);
 			
-			cplex.solve();
+			solveScenarios();
 			
 			if(!cplex.isPrimalFeasible()){
 				throw new Exception("Infeasible. Capacity constraints exceeded.");
@@ -274,24 +330,188 @@ public class DARMSRegretMarginalSolver{
 		}
 	}
 	
-	private void sumDefenderRegretRow() throws IloException{
-		Map<RiskCategory, Double> adversaryDistribution = model.getAdversaryDistribution();
+	private void solveScenarios() throws Exception{
+		cplex.solve();
 		
-		for(PassengerDistribution passengerDistribution : passengerDistributionList){
-			IloNumExpr expr = obj;
+		if(initialScenarios <= 0){
+			return;
+		}
+		
+		while(cplex.isPrimalFeasible()){
+			List<PassengerDistribution> violatedScenarios = findViolatedScenarios();
 			
-			for(RiskCategory c : adversaryDistribution.keySet()){
-				expr = cplex.sum(expr, cplex.prod(dMap.get(c), adversaryDistribution.get(c)));
+			if(violatedScenarios.isEmpty()){
+				break;
 			}
 			
-			for(int t : currentTimeWindows){
-				for(ScreeningResource r : model.getScreeningResources().keySet()){
-					expr = cplex.sum(expr, cplex.prod(oMap.get(passengerDistribution).get(t).get(r), overflowPenalties.get(r)));
+			for(PassengerDistribution distribution : violatedScenarios){
+				addScenario(distribution);
+			}
+			
+			scenarioIterations++;
+			
+			cplex.solve();
+		}
+	}
+	
+	// Regret of the current strategy on every inactive scenario, using the least overflow each window needs. Scenarios the
+	// strategy cannot serve within the overflow bounds count as infinitely violated.
+	private List<PassengerDistribution> findViolatedScenarios() throws IloException{
+		final Map<PassengerDistribution, Double> regrets = new HashMap<PassengerDistribution, Double>();
+		
+		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningResource, Double>>>> resourceShares = getResourceShares();
+		
+		double defenderPayoff = 0.0;
+		
+		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+			defenderPayoff += cplex.getValue(dMap.get(c)) * model.getAdversaryDistribution().get(c);
+		}
+		
+		double maxRegret = cplex.getValue(obj);
+		
+		for(PassengerDistribution distribution : passengerDistributionList){
+			if(activeScenarios.contains(distribution)){
+				continue;
+			}
+			
+			Map<Integer, Map<ScreeningResource, Double>> overflow = calculateOverflowPassengers(distribution, resourceShares);
+			
+			double regret = utopiaPoint.get(distribution) - defenderPayoff;
+			
+			for(int t : overflow.keySet()){
+				for(ScreeningResource r : overflow.get(t).keySet()){
+					double maxOverflowCapacity = maxOverflowPercentage * r.capacity() * model.getScreeningResources().get(r);
+					
+					if(overflow.get(t).get(r) > maxOverflowCapacity + DARMSModel.EPSILON){
+						regret = Double.POSITIVE_INFINITY;
+					}
+					
+					regret -= overflowPenalties.get(r) * overflow.get(t).get(r);
 				}
 			}
 			
-			constraints.add(cplex.ge(expr, utopiaPoint.get(passengerDistribution), "D" + passengerDistribution.id() + "REGRET"));
+			if(regret > maxRegret + DARMSModel.EPSILON){
+				regrets.put(distribution, regret);
+			}
+		}
+		
+		List<PassengerDistribution> violatedScenarios = new ArrayList<PassengerDistribution>(regrets.keySet());
+		
+		Collections.sort(violatedScenarios, new Comparator<PassengerDistribution>(){
+			public int compare(PassengerDistribution d1, PassengerDistribution d2){
+				return Double.compare(regrets.get(d2), regrets.get(d1));
+			}
+		});
+		
+		if(violatedScenarios.size() > scenariosPerIteration){
+			violatedScenarios = new ArrayList<PassengerDistribution>(violatedScenarios.subList(0, scenariosPerIteration));
 		}
+		
+		return violatedScenarios;
+	}
+	
+	private void addScenario(PassengerDistribution distribution) throws IloException{
+		List<IloNumVar> varList = overflowVars(distribution);
+		
+		cplex.add(varList.toArray(new IloNumVar[varList.size()]));
+		
+		List<IloRange> rows = screeningThroughputRows(distribution);
+		
+		rows.add(regretRow(distribution));
+		
+		cplex.add(rows.toArray(new IloRange[rows.size()]));
+		
+		constraints.addAll(rows);
+		activeScenarios.add(distribution);
+	}
+	
+	// Share of the passengers of (t, f, c) that the current strategy sends through resource r
+	private Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningResource, Double>>>> getResourceShares() throws IloException{
+		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningResource, Double>>>> resourceShares = new HashMap<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningResource, Double>>>>();
+		
+		for(int t : currentTimeWindows){
+			resourceShares.put(t, new HashMap<Flight, Map<RiskCategory, Map<ScreeningResource, Double>>>());
+			
+			for(Flight f : model.getFlights(t)){
+				resourceShares.get(t).put(f, new HashMap<RiskCategory, Map<ScreeningResource, Double>>());
+				
+				for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+					resourceShares.get(t).get(f).put(c, new HashMap<ScreeningResource, Double>());
+					
+					for(ScreeningResource r : model.getScreeningResources().keySet()){
+						resourceShares.get(t).get(f).get(c).put(r, 0.0);
+					}
+					
+					for(ScreeningOperation o : model.getScreeningOperations()){
+						double share = cplex.getValue(sMap.get(t).get(f).get(c).get(o));
+						
+						for(ScreeningResource r : o.getResources()){
+							resourceShares.get(t).get(f).get(c).put(r, resourceShares.get(t).get(f).get(c).get(r) + share);
+						}
+					}
+				}
+			}
+		}
+		
+		return resourceShares;
+	}
+	
+	private Map<Integer, Map<ScreeningResource, Double>> calculateOverflowPassengers(PassengerDistribution distribution, Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningResource, Double>>>> resourceShares){
+		Map<Integer, Map<ScreeningResource, Double>> overflow = new HashMap<Integer, Map<ScreeningResource, Double>>();
+		
+		Map<ScreeningResource, Integer> screeningResources = model.getScreeningResources();
+		
+		for(int t : currentTimeWindows){
+			overflow.put(t, new HashMap<ScreeningResource, Double>());
+			
+			for(ScreeningResource r : screeningResources.keySet()){
+				double load = 0.0;
+				
+				for(Flight f : model.getFlights(t)){
+					for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+						load += distribution.get(t, f, c) * resourceShares.get(t).get(f).get(c).get(r);
+					}
+				}
+				
+				double capacity = r.capacity() * screeningResources.get(r);
+				
+				overflow.get(t).put(r, Math.max(0.0, load - capacity));
+			}
+		}
+		
+		return overflow;
+	}
+	
+	public int getActiveScenarios(){
+		return activeScenarios.size();
+	}
+	
+	public int getScenarioIterations(){
+		return scenarioIterations;
+	}
+	
+	private void sumDefenderRegretRow() throws IloException{
+		for(PassengerDistribution passengerDistribution : activeScenarios){
+			constraints.add(regretRow(passengerDistribution));
+		}
+	}
+	
+	private IloRange regretRow(PassengerDistribution passengerDistribution) throws IloException{
+		Map<RiskCategory, Double> adversaryDistribution = model.getAdversaryDistribution();
+		
+		IloNumExpr expr = obj;
+		
+		for(RiskCategory c : adversaryDistribution.keySet()){
+			expr = cplex.sum(expr, cplex.prod(dMap.get(c), adversaryDistribution.get(c)));
+		}
+		
+		for(int t : currentTimeWindows){
+			for(ScreeningResource r : model.getScreeningResources().keySet()){
+				expr = cplex.sum(expr, cplex.prod(oMap.get(passengerDistribution).get(t).get(r), overflowPenalties.get(r)));
+			}
+		}
+		
+		return cplex.ge(expr, utopiaPoint.get(passengerDistribution), "D" + passengerDistribution.id() + "REGRET");
 	}
 	
 	private void sumDefenderCoverageRow() throws IloException{
@@ -302,7 +522,7 @@ public class DARMSRegretMarginalSolver{
 						IloNumExpr expr = xMap.get(t).get(c).get(f).get(m);
 						
 						for(ScreeningOperation o : model.getScreeningOperations()){
-							expr = cplex.sum(expr, cplex.prod(sMap.get(t).get(f).get(c).get(o), -o.effectiveness(c, m)));
+							expr = cplex.sum(expr, cplex.prod(sMap.get(t).get(f).get(c).get(o), -model.effectiveness(o, c, m)));
 						}
 						
 						constraints.add(cplex.eq(expr, 0, "X" + t + "C" + c.id() + "F" + f.id() + "M" + m.id() + "SUM"));
@@ -328,31 +548,14 @@ public class DARMSRegretMarginalSolver{
 		}
 	}
 	
-	private void setStaticScreening() throws IloException{
-		for(int t : currentTimeWindows){
-			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
-				for(ScreeningOperation o : model.getScreeningOperations()){
-					for(Flight f1 : model.getFlights(t)){
-						IloNumExpr expr1 = sMap.get(t).get(f1).get(c).get(o);
-						
-						for(Flight f2 : model.getFlights(t)){
-							if(f2.id() - f1.id() == 1){
-								IloNumExpr expr2 = cplex.prod(-1.0, sMap.get(t).get(f2).get(c).get(o));
-								
-								IloNumExpr expr = cplex.sum(expr1, expr2);
-								
-								constraints.add(cplex.eq(expr, 0.0, "T" + t + "C" + c.id() + "O" + o.getID() + "F" + f1.id() + "F" + f2.id()));
-							}
-						}
-					}
-				}
-			}
-		}
-	}
-	
 	private void sumDefenderScreeningActionRow() throws IloException{
 		for(int t : currentTimeWindows){
 			for(Flight f : model.getFlights(t)){
+				// With shared static screening variables the rows of the first flight already cover the others
+				if(!model.flightByFlight() && f != model.getFlights(t).get(0)){
+					continue;
+				}
+				
 				for(RiskCategory c : model.getAdversaryDistribution().keySet()){
 					IloNumExpr expr = cplex.constant(0);
 					
@@ -367,31 +570,39 @@ public class DARMSRegretMarginalSolver{
 	}
 	
 	private void sumDefenderScreeningThroughputRow() throws IloException{
+		for(PassengerDistribution distribution : activeScenarios){
+			constraints.addAll(screeningThroughputRows(distribution));
+		}
+	}
+	
+	private List<IloRange> screeningThroughputRows(PassengerDistribution distribution) throws IloException{
+		List<IloRange> rows = new ArrayList<IloRange>();
+		
 		Map<ScreeningResource, Integer> screeningResources = model.getScreeningResources();
 		
-		for(PassengerDistribution distribution : passengerDistributionList){
-			for(int t : currentTimeWindows){
-				for(ScreeningResource r : screeningResources.keySet()){
-					IloNumExpr expr = cplex.prod(-1.0, oMap.get(distribution).get(t).get(r));
-					
-					for(Flight f : model.getFlights(t)){
-						for(RiskCategory c : model.getAdversaryDistribution().keySet()){
-							int numPassengers = distribution.get(t, f, c);
-							
-							for(ScreeningOperation o : model.getScreeningOperations()){
-								if(o.getResources().contains(r)){
-									expr = cplex.sum(expr, cplex.prod(sMap.get(t).get(f).get(c).get(o), numPassengers));
-								}
+		for(int t : currentTimeWindows){
+			for(ScreeningResource r : screeningResources.keySet()){
+				IloNumExpr expr = cplex.prod(-1.0, oMap.get(distribution).get(t).get(r));
+				
+				for(Flight f : model.getFlights(t)){
+					for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+						int numPassengers = distribution.get(t, f, c);
+						
+						for(ScreeningOperation o : model.getScreeningOperations()){
+							if(o.getResources().contains(r)){
+								expr = cplex.sum(expr, cplex.prod(sMap.get(t).get(f).get(c).get(o), numPassengers));
 							}
 						}
 					}
-					
-					double capacity = r.capacity() * screeningResources.get(r); //TODO: Adjust capacity according to time granularity
-					
-					constraints.add(cplex.le(expr, capacity, "SD" + distribution.id() + "T" + t + "R" + r.id() + "THROUGHPUT"));
 				}
+				
+				double capacity = r.capacity() * screeningResources.get(r); //TODO: Adjust capacity according to time granularity
+				
+				rows.add(cplex.le(expr, capacity, "SD" + distribution.id() + "T" + t + "R" + r.id() + "THROUGHPUT"));
 			}
 		}
+		
+		return rows;
 	}
 	
 	//TODO
@@ -621,6 +832,17 @@ public class DARMSRegretMarginalSolver{
 			}
 		}
 		
+		// Scenarios never added by scenario generation get the least overflow the strategy needs on them
+		if(activeScenarios.size() < passengerDistributionList.size()){
+			Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningResource, Double>>>> resourceShares = getResourceShares();
+			
+			for(PassengerDistribution passengerDistribution : passengerDistributionList){
+				if(!overflowPassengersMap.containsKey(passengerDistribution)){
+					overflowPassengersMap.put(passengerDistribution, calculateOverflowPassengers(passengerDistribution, resourceShares));
+				}
+			}
+		}
+		
 		return overflowPassengersMap;
 	}
 	
@@ -673,7 +895,7 @@ public class DARMSRegretMarginalSolver{
 		
 		Map<PassengerDistribution, Double> distributionPayoffMap = new HashMap<PassengerDistribution, Double>();
 
-		for(PassengerDistribution passengerDistribution : oMap.keySet()){
+		for(PassengerDistribution passengerDistribution : overflowPassengers.keySet()){
 			double p = getDefenderPayoff();
 			
 			for(int t : overflowPassengers.get(passengerDistribution).keySet()){
@@ -767,7 +989,7 @@ public class DARMSRegretMarginalSolver{
 						double probability = 0.0;
 						
 						for(ScreeningOperation o : model.getScreeningOperations()){
-							probability += cplex.getValue(sMap.get(t).get(f).get(c).get(o)) * o.effectiveness(c, m);
+							probability += cplex.getValue(sMap.get(t).get(f).get(c).get(o)) * model.effectiveness(o, c, m);
 						}
 						
 						if(probability > 1.0){
@@ -7,6 +7,7 @@ import models.Flight;
 import models.RiskCategory;
 import models.ScreeningOperation;
 import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
 
 public interface DARMSSlave{
 	public void solve() throws Exception;
@@ -26,4 +27,10 @@ public interface DARMSSlave{
 	public void initializeReducedCosts() throws IloException;
 	
 	public double getReducedCost() throws IloException;
+	
+	// Wall-clock limit in seconds for the next solve(); with no incumbent at the limit solve() throws
+	public void setTimeLimit(double seconds) throws IloException;
+	
+	// Every later solve() stops as soon as the aborter is aborted, including one already running in another thread
+	public void setAborter(IloCplex.Aborter aborter) throws IloException;
 }
\ No newline at end of file
@@ -138,6 +138,14 @@ public class DARMSSlaveSolver implements DARMSSlave{
 		cplex.addMinimize(expr);
 	}
 	
+	public void setTimeLimit(double seconds) throws IloException{
+		cplex.setParam(IloCplex.DoubleParam.TiLim, seconds);
+	}
+	
+	public void setAborter(IloCplex.Aborter aborter) throws IloException{
+		cplex.use(aborter);
+	}
+	
 	public void solve() throws Exception{
 		cplex.solve();
 			
@@ -7,6 +7,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import models.AttackMethod;
 import models.DARMSModel;
@@ -39,6 +44,42 @@ public class DARMSSolver {
 	
 	private static final int MM = 100000;
 	
+	private static final int MAX_CANDIDATE_RESPONSES = 1000000;
+	
+	private boolean adversaryResponseFixed;
+	
+	private long candidateResponses;
+	private long prunedResponses;
+	private int solvedLPs;
+	private double runtime;
+	
+	// One attacker target of a risk category, with the best defender payoff any coverage it can receive allows
+	private static class Response {
+		private Flight f;
+		private AttackMethod m;
+		private double defenderBound;
+		
+		private Response(Flight f, AttackMethod m, double defenderBound){
+			this.f = f;
+			this.m = m;
+			this.defenderBound = defenderBound;
+		}
+	}
+	
+	private static class Candidate implements Comparable<Candidate> {
+		private Response[] responses;
+		private double defenderBound;
+		
+		private Candidate(Response[] responses, double defenderBound){
+			this.responses = responses;
+			this.defenderBound = defenderBound;
+		}
+		
+		public int compareTo(Candidate other){
+			return Double.compare(other.defenderBound, defenderBound);
+		}
+	}
+	
 	public DARMSSolver(DARMSModel model) throws IloException{
 		this.model = model;
 		
@@ -63,17 +104,36 @@ public class DARMSSolver {
 	private void initVars() throws IloException{
 		List<IloNumVar> varList = new ArrayList<IloNumVar>();
 		
+		// Static screening shares one s variable per (c, o) among all flights instead of adding equality rows
+		Map<RiskCategory, Map<ScreeningOperation, IloNumVar>> sharedVars = new HashMap<RiskCategory, Map<ScreeningOperation, IloNumVar>>();
+		
 		for(Flight f : model.getFlights()){
 			sMap.put(f, new HashMap<RiskCategory, Map<ScreeningOperation, IloNumVar>>());
 			
 			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
 				sMap.get(f).put(c, new HashMap<ScreeningOperation, IloNumVar>());
 				
-				for(ScreeningOperation o : model.getScreeningOperations()){
-					IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_f" +  f.id() + "_c" + c.id() + "_o" + o.getID());
+				if(!model.flightByFlight() && !sharedVars.containsKey(c)){
+					sharedVars.put(c, new HashMap<ScreeningOperation, IloNumVar>());
+					
+					for(ScreeningOperation o : model.getScreeningOperations()){
+						IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_c" + c.id() + "_o" + o.getID());
+						
+						sharedVars.get(c).put(o, var);
+						varList.add(var);
+					}
+				}
 				
-					sMap.get(f).get(c).put(o, var);
-					varList.add(var);
+				for(ScreeningOperation o : model.getScreeningOperations()){
+					if(!model.flightByFlight()){
+						sMap.get(f).get(c).put(o, sharedVars.get(c).get(o));
+					}
+					else{
+						IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_f" +  f.id() + "_c" + c.id() + "_o" + o.getID());
+					
+						sMap.get(f).get(c).put(o, var);
+						varList.add(var);
+					}
 				}
 			}
 		}
@@ -146,10 +206,6 @@ public class DARMSSolver {
 		setDefenderPayoffRow();
 		setAdversaryPayoffRow();
 		
-		if(!model.flightByFlight()){
-			setStaticScreening();
-		}
-		
 		IloRange[] c = new IloRange[constraints.size()];
 
 		cplex.add(constraints.toArray(c));
@@ -168,7 +224,268 @@ public class DARMSSolver {
 	}
 	
 	public void solve() throws IloException{
+		if(adversaryResponseFixed){
+			releaseAdversaryResponse();
+		}
+		
+		cplex.solve();
+	}
+	
+	public void setThreads(int threads) throws IloException{
+		cplex.setParam(IloCplex.IntParam.Threads, threads);
+	}
+	
+	// Multiple-LPs alternative to the MILP for small target sets: every joint attacker response (one target per category) is
+	// an LP with the binaries fixed. Targets that can never be a best response are dropped first, the remaining joint
+	// responses are solved best bound first on numThreads workers, and any response whose bound cannot beat the incumbent is
+	// skipped. The winning response is then fixed in this solver and re-solved so the usual getters report its solution.
+	public void solveMultipleLPs(int numThreads) throws Exception{
+		long start = System.currentTimeMillis();
+		
+		final List<RiskCategory> riskCategories = new ArrayList<RiskCategory>(model.getAdversaryDistribution().keySet());
+		Collections.sort(riskCategories);
+		
+		List<List<Response>> categoryResponses = new ArrayList<List<Response>>();
+		
+		long totalResponses = 1;
+		long inducibleResponses = 1;
+		
+		for(RiskCategory c : riskCategories){
+			List<Response> responses = calculateInducibleResponses(c);
+			
+			if(responses.isEmpty()){
+				throw new Exception("No inducible attacker response for risk category " + c);
+			}
+			
+			categoryResponses.add(responses);
+			
+			totalResponses *= model.getFlights().size() * model.getAttackMethods().size();
+			inducibleResponses *= responses.size();
+			
+			if(inducibleResponses > MAX_CANDIDATE_RESPONSES){
+				throw new Exception("Too many candidate attacker responses for the multiple-LPs solver: more than " + MAX_CANDIDATE_RESPONSES);
+			}
+		}
+		
+		final List<Candidate> candidates = new ArrayList<Candidate>();
+		
+		enumerateCandidates(riskCategories, categoryResponses, 0, new Response[riskCategories.size()], candidates);
+		
+		Collections.sort(candidates);
+		
+		candidateResponses = totalResponses;
+		
+		final AtomicInteger nextCandidate = new AtomicInteger(0);
+		final AtomicInteger solved = new AtomicInteger(0);
+		
+		final double[] incumbentValue = new double[]{Double.NEGATIVE_INFINITY};
+		final Candidate[] incumbent = new Candidate[1];
+		
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		
+		try{
+			for(int i = 0; i < numThreads; i++){
+				futures.add(executor.submit(new Callable<Void>(){
+					public Void call() throws Exception{
+						DARMSSolver solver = new DARMSSolver(model);
+						
+						solver.setThreads(1);
+						
+						try{
+							int index;
+							
+							while((index = nextCandidate.getAndIncrement()) < candidates.size()){
+								Candidate candidate = candidates.get(index);
+								
+								synchronized(incumbent){
+									// Candidates are sorted by bound, so none of the remaining ones can improve either
+									if(candidate.defenderBound <= incumbentValue[0] + DARMSModel.EPSILON){
+										break;
+									}
+								}
+								
+								solver.fixAdversaryResponse(riskCategories, candidate.responses);
+								
+								solved.incrementAndGet();
+								
+								if(!solver.cplex.solve()){
+									continue;
+								}
+								
+								double defenderPayoff = solver.cplex.getObjValue();
+								
+								synchronized(incumbent){
+									if(defenderPayoff > incumbentValue[0]){
+										incumbentValue[0] = defenderPayoff;
+										incumbent[0] = candidate;
+									}
+								}
+							}
+						}
+						finally{
+							solver.cplex.end();
+						}
+						
+						return null;
+					}
+				}));
+			}
+			
+			for(Future<Void> future : futures){
+				future.get();
+			}
+		}
+		finally{
+			executor.shutdownNow();
+		}
+		
+		if(incumbent[0] == null){
+			throw new Exception("Infeasible. No candidate attacker response admits a feasible defender strategy.");
+		}
+		
+		solvedLPs = solved.get();
+		prunedResponses = candidateResponses - solvedLPs;
+		
+		fixAdversaryResponse(riskCategories, incumbent[0].responses);
+		
 		cplex.solve();
+		
+		runtime = (System.currentTimeMillis() - start) / 1000.0;
+	}
+	
+	// A target is a possible best response only if the attacker's payoff there, at the least coverage it can get, reaches
+	// the payoff some other target guarantees at the most coverage it can get
+	private List<Response> calculateInducibleResponses(RiskCategory c){
+		Map<Flight, Map<AttackMethod, Double>> minimumCoverage = new HashMap<Flight, Map<AttackMethod, Double>>();
+		Map<Flight, Map<AttackMethod, Double>> maximumCoverage = new HashMap<Flight, Map<AttackMethod, Double>>();
+		
+		double guaranteedPayoff = Double.NEGATIVE_INFINITY;
+		
+		for(Flight f : model.getFlights()){
+			minimumCoverage.put(f, new HashMap<AttackMethod, Double>());
+			maximumCoverage.put(f, new HashMap<AttackMethod, Double>());
+			
+			for(AttackMethod m : model.getAttackMethods()){
+				double minimum = Double.POSITIVE_INFINITY;
+				double maximum = 0.0;
+				
+				for(ScreeningOperation o : model.getScreeningOperations()){
+					minimum = Math.min(minimum, model.effectiveness(o, c, m));
+					maximum = Math.max(maximum, model.effectiveness(o, c, m));
+				}
+				
+				for(PostScreeningResource p : model.getPostScreeningResources().keySet()){
+					maximum += p.effectiveness(m);
+				}
+				
+				minimum = Math.min(minimum, 1.0);
+				maximum = Math.min(maximum, 1.0);
+				
+				minimumCoverage.get(f).put(m, minimum);
+				maximumCoverage.get(f).put(m, maximum);
+				
+				guaranteedPayoff = Math.max(guaranteedPayoff, Math.min(attackerPayoff(f, minimum), attackerPayoff(f, maximum)));
+			}
+		}
+		
+		List<Response> responses = new ArrayList<Response>();
+		
+		for(Flight f : model.getFlights()){
+			for(AttackMethod m : model.getAttackMethods()){
+				double minimum = minimumCoverage.get(f).get(m);
+				double maximum = maximumCoverage.get(f).get(m);
+				
+				if(Math.max(attackerPayoff(f, minimum), attackerPayoff(f, maximum)) < guaranteedPayoff - DARMSModel.EPSILON){
+					continue;
+				}
+				
+				double defenderBound = Math.max(defenderPayoff(f, minimum), defenderPayoff(f, maximum));
+				
+				responses.add(new Response(f, m, defenderBound));
+			}
+		}
+		
+		return responses;
+	}
+	
+	private void enumerateCandidates(List<RiskCategory> riskCategories, List<List<Response>> categoryResponses, int index, Response[] responses, List<Candidate> candidates){
+		if(index == riskCategories.size()){
+			double defenderBound = 0.0;
+			
+			for(int i = 0; i < riskCategories.size(); i++){
+				defenderBound += model.getAdversaryDistribution().get(riskCategories.get(i)) * responses[i].defenderBound;
+			}
+			
+			candidates.add(new Candidate(responses.clone(), defenderBound));
+			
+			return;
+		}
+		
+		for(Response response : categoryResponses.get(index)){
+			responses[index] = response;
+			
+			enumerateCandidates(riskCategories, categoryResponses, index + 1, responses, candidates);
+		}
+	}
+	
+	private double defenderPayoff(Flight f, double coverage){
+		return coverage * f.getDefCovPayoff() + (1.0 - coverage) * f.getDefUncovPayoff();
+	}
+	
+	private double attackerPayoff(Flight f, double coverage){
+		return coverage * f.getAttCovPayoff() + (1.0 - coverage) * f.getAttUncovPayoff();
+	}
+	
+	private void fixAdversaryResponse(List<RiskCategory> riskCategories, Response[] responses) throws IloException{
+		for(int i = 0; i < riskCategories.size(); i++){
+			RiskCategory c = riskCategories.get(i);
+			
+			for(Flight f : model.getFlights()){
+				for(AttackMethod m : model.getAttackMethods()){
+					double value = (f == responses[i].f && m == responses[i].m) ? 1.0 : 0.0;
+					
+					IloNumVar a = aMap.get(c).get(f).get(m);
+					
+					// Keep lb <= ub at every step
+					a.setLB(0.0);
+					a.setUB(value);
+					a.setLB(value);
+				}
+			}
+		}
+		
+		adversaryResponseFixed = true;
+	}
+	
+	private void releaseAdversaryResponse() throws IloException{
+		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+			for(Flight f : model.getFlights()){
+				for(AttackMethod m : model.getAttackMethods()){
+					aMap.get(c).get(f).get(m).setLB(0.0);
+					aMap.get(c).get(f).get(m).setUB(1.0);
+				}
+			}
+		}
+		
+		adversaryResponseFixed = false;
+	}
+	
+	public long getCandidateResponses(){
+		return candidateResponses;
+	}
+	
+	public long getPrunedResponses(){
+		return prunedResponses;
+	}
+	
+	public int getSolvedLPs(){
+		return solvedLPs;
+	}
+	
+	public double getRuntime(){
+		return runtime;
 	}
 	
 	private void sumDefenderCoverageRow() throws IloException{
@@ -178,7 +495,7 @@ public class DARMSSolver {
 					IloNumExpr expr = xMap.get(c).get(f).get(m);
 					
 					for(ScreeningOperation o : model.getScreeningOperations()){
-						expr = cplex.sum(expr, cplex.prod(sMap.get(f).get(c).get(o), -o.effectiveness(c, m)));
+						expr = cplex.sum(expr, cplex.prod(sMap.get(f).get(c).get(o), -model.effectiveness(o, c, m)));
 					}
 					
 					for(PostScreeningResource p : model.getPostScreeningResources().keySet()){
@@ -241,28 +558,13 @@ public class DARMSSolver {
 		}
 	}
 	
-	private void setStaticScreening() throws IloException{
-		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
-			for(ScreeningOperation o : model.getScreeningOperations()){
-				for(Flight f1 : model.getFlights()){
-					IloNumExpr expr1 = sMap.get(f1).get(c).get(o);
-					
-					for(Flight f2 : model.getFlights()){
-						if(f2.id() - f1.id() == 1){
-							IloNumExpr expr2 = cplex.prod(-1.0, sMap.get(f2).get(c).get(o));
-							
-							IloNumExpr expr = cplex.sum(expr1, expr2);
-							
-							constraints.add(cplex.eq(expr, 0.0, "C" + c.id() + "O" + o.getID() + "F" + f1.id() + "F" + f2.id()));
-						}
-					}
-				}
-			}
-		}
-	}
-	
 	private void sumDefenderScreeningActionRow() throws IloException{
 		for(Flight f : model.getFlights()){
+			// With shared static screening variables the rows of the first flight already cover the others
+			if(!model.flightByFlight() && f != model.getFlights().get(0)){
+				continue;
+			}
+			
 			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
 				IloNumExpr expr = cplex.constant(0);
 				
@@ -575,7 +877,7 @@ public class DARMSSolver {
 					double probability = 0.0;
 					
 					for(ScreeningOperation o : model.getScreeningOperations()){
-						probability += cplex.getValue(sMap.get(f).get(c).get(o)) * o.effectiveness(c, m);
+						probability += cplex.getValue(sMap.get(f).get(c).get(o)) * model.effectiveness(o, c, m);
 					}
 					
 					for(PostScreeningResource p : model.getPostScreeningResources().keySet()){
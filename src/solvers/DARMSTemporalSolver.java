@@ -99,20 +99,39 @@ public class DARMSTemporalSolver {
 	private void initVars() throws IloException{
 		List<IloNumVar> varList = new ArrayList<IloNumVar>();
 		
+		// Static screening shares one s variable per (t, c, o) among all flights of a window instead of adding equality rows
 		for(int t : currentTimeWindows){
 			sMap.put(t, new HashMap<Flight, Map<RiskCategory, Map<ScreeningOperation, IloNumVar>>>());
 			
+			Map<RiskCategory, Map<ScreeningOperation, IloNumVar>> sharedVars = new HashMap<RiskCategory, Map<ScreeningOperation, IloNumVar>>();
+			
 			for(Flight f : flights.get(t)){
 				sMap.get(t).put(f, new HashMap<RiskCategory, Map<ScreeningOperation, IloNumVar>>());
 				
 				for(RiskCategory c : model.getAdversaryDistribution().keySet()){
 					sMap.get(t).get(f).put(c, new HashMap<ScreeningOperation, IloNumVar>());
 					
-					for(ScreeningOperation o : model.getScreeningOperations()){
-						IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_t" + t + "_f" +  f.id() + "_c" + c.id() + "_o" + o.getID());
+					if(!model.flightByFlight() && !sharedVars.containsKey(c)){
+						sharedVars.put(c, new HashMap<ScreeningOperation, IloNumVar>());
+						
+						for(ScreeningOperation o : model.getScreeningOperations()){
+							IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_t" + t + "_c" + c.id() + "_o" + o.getID());
+							
+							sharedVars.get(c).put(o, var);
+							varList.add(var);
+						}
+					}
 					
-						sMap.get(t).get(f).get(c).put(o, var);
-						varList.add(var);
+					for(ScreeningOperation o : model.getScreeningOperations()){
+						if(!model.flightByFlight()){
+							sMap.get(t).get(f).get(c).put(o, sharedVars.get(c).get(o));
+						}
+						else{
+							IloNumVar var = cplex.numVar(0.0, 1.0, IloNumVarType.Float, "s_t" + t + "_f" +  f.id() + "_c" + c.id() + "_o" + o.getID());
+						
+							sMap.get(t).get(f).get(c).put(o, var);
+							varList.add(var);
+						}
 					}
 				}
 			}
@@ -198,10 +217,6 @@ public class DARMSTemporalSolver {
 		setDefenderPayoffRow();
 		setAdversaryPayoffRow();
 		
-		if(!model.flightByFlight()){
-			setStaticScreening();
-		}
-		
 		IloRange[] c = new IloRange[constraints.size()];
 
 		cplex.add(constraints.toArray(c));
@@ -279,7 +294,7 @@ public class DARMSTemporalSolver {
 						IloNumExpr expr = xMap.get(t).get(c).get(f).get(m);
 						
 						for(ScreeningOperation o : model.getScreeningOperations()){
-							expr = cplex.sum(expr, cplex.prod(sMap.get(t).get(f).get(c).get(o), -o.effectiveness(c, m)));
+							expr = cplex.sum(expr, cplex.prod(sMap.get(t).get(f).get(c).get(o), -model.effectiveness(o, c, m)));
 						}
 						
 						for(PostScreeningResource p : model.getPostScreeningResources().keySet()){
@@ -338,32 +353,14 @@ public class DARMSTemporalSolver {
 		}
 	}
 
-	//TODO: Sort out how static screening works (i.e., the same across all time windows and flights?)
-	private void setStaticScreening() throws IloException{
-		for(int t : currentTimeWindows){
-			for(RiskCategory c : model.getAdversaryDistribution().keySet()){
-				for(ScreeningOperation o : model.getScreeningOperations()){
-					for(Flight f1 : flights.get(t)){
-						IloNumExpr expr1 = sMap.get(t).get(f1).get(c).get(o);
-						
-						for(Flight f2 : flights.get(t)){
-							if(f2.id() - f1.id() == 1){
-								IloNumExpr expr2 = cplex.prod(-1.0, sMap.get(t).get(f2).get(c).get(o));
-								
-								IloNumExpr expr = cplex.sum(expr1, expr2);
-								
-								constraints.add(cplex.eq(expr, 0.0, "T" + t + "C" + c.id() + "O" + o.getID() + "F" + f1.id() + "F" + f2.id()));
-							}
-						}
-					}
-				}
-			}
-		}
-	}
-	
 	private void sumDefenderScreeningActionRow() throws IloException{
 		for(int t : currentTimeWindows){
 			for(Flight f : flights.get(t)){
+				// With shared static screening variables the rows of the first flight already cover the others
+				if(!model.flightByFlight() && f != flights.get(t).get(0)){
+					continue;
+				}
+				
 				for(RiskCategory c : model.getAdversaryDistribution().keySet()){
 					IloNumExpr expr = cplex.constant(0);
 					
@@ -703,7 +700,7 @@ public class DARMSTemporalSolver {
 						double probability = 0.0;
 						
 						for(ScreeningOperation o : model.getScreeningOperations()){
-							probability += cplex.getValue(sMap.get(t).get(f).get(c).get(o)) * o.effectiveness(c, m);
+							probability += cplex.getValue(sMap.get(t).get(f).get(c).get(o)) * model.effectiveness(o, c, m);
 						}
 						
 						for(PostScreeningResource p : model.getPostScreeningResources().keySet()){
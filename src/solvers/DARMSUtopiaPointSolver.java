@@ -0,0 +1,136 @@
+package solvers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import models.DARMSModel;
+import models.PassengerDistribution;
+
+/*
+ * Optimal defender payoff of every passenger distribution scenario, the utopia point of the minimax-regret solver. Scenarios
+ * are solved concurrently; each worker owns one LP and only swaps the passenger counts of its throughput rows between
+ * scenarios. Optima are memoized per scenario, so later calls (e.g. regret runs with other overflow penalties) only solve
+ * the scenarios they have not seen.
+ */
+public class DARMSUtopiaPointSolver {
+	private DARMSModel model;
+	private boolean decomposed;
+	private int numWorkers;
+	
+	private Map<PassengerDistribution, Double> utopiaPoint = new ConcurrentHashMap<PassengerDistribution, Double>();
+	
+	private int scenariosSolved;
+	private double runtime;
+	
+	public DARMSUtopiaPointSolver(DARMSModel model, boolean decomposed, int numWorkers){
+		this.model = model;
+		this.decomposed = decomposed;
+		this.numWorkers = numWorkers;
+	}
+	
+	public Map<PassengerDistribution, Double> solve(List<PassengerDistribution> passengerDistributions) throws Exception{
+		long start = System.currentTimeMillis();
+		
+		final List<PassengerDistribution> unsolved = new ArrayList<PassengerDistribution>();
+		
+		for(PassengerDistribution pd : passengerDistributions){
+			if(!utopiaPoint.containsKey(pd) && !unsolved.contains(pd)){
+				unsolved.add(pd);
+			}
+		}
+		
+		final AtomicInteger nextScenario = new AtomicInteger(0);
+		final AtomicInteger solved = new AtomicInteger(0);
+		
+		int workers = Math.min(numWorkers, unsolved.size());
+		
+		if(workers > 0){
+			ExecutorService executor = Executors.newFixedThreadPool(workers);
+			
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			
+			try{
+				for(int i = 0; i < workers; i++){
+					futures.add(executor.submit(new Callable<Void>(){
+						public Void call() throws Exception{
+							DARMSMarginalSolver solver = null;
+							
+							int index;
+							
+							try{
+								while((index = nextScenario.getAndIncrement()) < unsolved.size()){
+									PassengerDistribution pd = unsolved.get(index);
+									
+									if(solver == null){
+										solver = new DARMSMarginalSolver(model, pd, true, decomposed, true, false);
+										
+										solver.setThreads(1);
+										solver.solve();
+									}
+									else{
+										solver.setPassengerDistribution(pd);
+										solver.resolve();
+									}
+									
+									utopiaPoint.put(pd, solver.getDefenderPayoff());
+									
+									solved.incrementAndGet();
+								}
+							}
+							finally{
+								if(solver != null){
+									solver.end();
+								}
+							}
+							
+							return null;
+						}
+					}));
+				}
+				
+				for(Future<Void> future : futures){
+					future.get();
+				}
+			}
+			finally{
+				executor.shutdownNow();
+			}
+		}
+		
+		scenariosSolved += solved.get();
+		runtime += (System.currentTimeMillis() - start) / 1000.0;
+		
+		Map<PassengerDistribution, Double> scenarioPayoffs = new HashMap<PassengerDistribution, Double>();
+		
+		for(PassengerDistribution pd : passengerDistributions){
+			scenarioPayoffs.put(pd, utopiaPoint.get(pd));
+		}
+		
+		return scenarioPayoffs;
+	}
+	
+	public Double get(PassengerDistribution pd){
+		return utopiaPoint.get(pd);
+	}
+	
+	public void clear(){
+		utopiaPoint.clear();
+	}
+	
+	// Scenarios actually solved over all calls; memoized scenarios are not counted again
+	public int getScenariosSolved(){
+		return scenariosSolved;
+	}
+	
+	public double getRuntime(){
+		return runtime;
+	}
+}
@@ -0,0 +1,138 @@
+package utilities;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+public class DARMSExporter {
+	public enum Level { NONE, INFEASIBLE, ALL }
+	
+	private static DARMSExporter defaultExporter;
+	
+	private Level level;
+	private boolean compress;
+	private File directory;
+	private String runID;
+	private AtomicInteger sequence;
+	private ExecutorService executor;
+	
+	public DARMSExporter(Level level, boolean compress, String directory){
+		this.level = level;
+		this.compress = compress;
+		this.directory = new File(directory);
+		this.runID = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		this.sequence = new AtomicInteger(0);
+	}
+	
+	// Configured through -Ddarms.export.level=NONE|INFEASIBLE|ALL, -Ddarms.export.compress and -Ddarms.export.directory
+	public static synchronized DARMSExporter getDefault(){
+		if(defaultExporter == null){
+			Level level = Level.valueOf(System.getProperty("darms.export.level", "NONE").trim().toUpperCase());
+			boolean compress = Boolean.parseBoolean(System.getProperty("darms.export.compress", "false"));
+			String directory = System.getProperty("darms.export.directory", ".");
+			
+			defaultExporter = new DARMSExporter(level, compress, directory);
+		}
+		
+		return defaultExporter;
+	}
+	
+	public boolean enabled(Level exportLevel){
+		return exportLevel != Level.NONE && exportLevel.ordinal() <= level.ordinal();
+	}
+	
+	// DARMS.lp -> <directory>/DARMS.<run>.<sequence>.lp so repeated exports within and across runs never overwrite each other
+	public String nextFilename(String filename){
+		if(!directory.exists()){
+			directory.mkdirs();
+		}
+		
+		String name = new File(filename).getName();
+		int extensionIndex = name.lastIndexOf('.');
+		
+		String base = (extensionIndex > 0) ? name.substring(0, extensionIndex) : name;
+		String extension = (extensionIndex > 0) ? name.substring(extensionIndex) : "";
+		
+		return new File(directory, base + "." + runID + "." + sequence.incrementAndGet() + extension).getPath();
+	}
+	
+	public void exported(String filename){
+		if(!compress){
+			return;
+		}
+		
+		final File file = new File(filename);
+		
+		getExecutor().submit(new Runnable(){
+			public void run(){
+				try{
+					compress(file);
+				}
+				catch(Exception e){
+					e.printStackTrace();
+				}
+			}
+		});
+	}
+	
+	public void flush() throws InterruptedException{
+		ExecutorService pending;
+		
+		synchronized(this){
+			pending = executor;
+			executor = null;
+		}
+		
+		if(pending != null){
+			pending.shutdown();
+			pending.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	private synchronized ExecutorService getExecutor(){
+		if(executor == null){
+			executor = Executors.newSingleThreadExecutor(new ThreadFactory(){
+				public Thread newThread(Runnable r){
+					Thread thread = new Thread(r, "DARMSExporter");
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+		}
+		
+		return executor;
+	}
+	
+	private static void compress(File file) throws Exception{
+		File compressedFile = new File(file.getPath() + ".gz");
+		
+		InputStream in = new FileInputStream(file);
+		OutputStream out = new GZIPOutputStream(new FileOutputStream(compressedFile));
+		
+		try{
+			byte[] buffer = new byte[65536];
+			int length;
+			
+			while((length = in.read(buffer)) > 0){
+				out.write(buffer, 0, length);
+			}
+		}
+		finally{
+			in.close();
+			out.close();
+		}
+		
+		file.delete();
+	}
+}
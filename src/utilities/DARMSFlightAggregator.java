@@ -0,0 +1,374 @@
+package utilities;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import models.AttackMethod;
+import models.DARMSModel;
+import models.Flight;
+import models.PassengerDistribution;
+import models.PayoffStructure;
+import models.RiskCategory;
+import models.ScreeningOperation;
+
+/*
+ * Merges the flights of a time window that share flight type and all four payoffs into one aggregated flight carrying their
+ * summed passenger counts. Within a window such flights only differ in their passenger counts, so the marginal LP over the
+ * aggregated flights has the same optimum: any strategy of the aggregated flight is feasible for every member, and the
+ * passenger-weighted average of the members' strategies uses the same capacity and covers the worst member no worse.
+ *
+ * Only applies when there are no post-screening resources, since those are assigned per flight. Under static screening all
+ * flights of a window share their screening variables, so the aggregated flight simply shares them as well.
+ */
+public class DARMSFlightAggregator {
+	private DARMSModel model;
+	private DARMSModel reducedModel;
+	
+	private Map<Integer, Map<Flight, List<Flight>>> groups;
+	
+	private int originalFlightWindows;
+	private int reducedFlightWindows;
+	
+	public DARMSFlightAggregator(DARMSModel model){
+		this.model = model;
+	}
+	
+	public boolean applicable(){
+		return model.getPostScreeningResources().isEmpty();
+	}
+	
+	public DARMSModel aggregate() throws Exception{
+		if(!applicable()){
+			throw new Exception("Flight aggregation requires a model without post-screening resources.");
+		}
+		
+		PayoffStructure payoffStructure = model.getPayoffStructure();
+		PassengerDistribution passengerDistribution = model.getPassengerDistribution();
+		
+		groups = new HashMap<Integer, Map<Flight, List<Flight>>>();
+		originalFlightWindows = 0;
+		reducedFlightWindows = 0;
+		
+		List<Flight> flights = new ArrayList<Flight>();
+		Map<Integer, List<Flight>> flightMap = new HashMap<Integer, List<Flight>>();
+		Map<Integer, Map<Flight, Map<RiskCategory, Integer>>> distribution = new HashMap<Integer, Map<Flight, Map<RiskCategory, Integer>>>();
+		
+		Map<Flight, Integer> defCovMap = new HashMap<Flight, Integer>();
+		Map<Flight, Integer> defUncovMap = new HashMap<Flight, Integer>();
+		Map<Flight, Integer> attCovMap = new HashMap<Flight, Integer>();
+		Map<Flight, Integer> attUncovMap = new HashMap<Flight, Integer>();
+		
+		for(int t : model.getTimeWindows()){
+			List<Flight> windowFlights = model.getFlights(t);
+			
+			if(windowFlights == null){
+				continue;
+			}
+			
+			Map<String, List<Flight>> windowGroups = new LinkedHashMap<String, List<Flight>>();
+			
+			for(Flight f : windowFlights){
+				String key = f.getFlightType() + ":" + payoffStructure.defCov(f) + ":" + payoffStructure.defUncov(f) + ":" + payoffStructure.attCov(f) + ":" + payoffStructure.attUncov(f);
+				
+				if(!windowGroups.containsKey(key)){
+					windowGroups.put(key, new ArrayList<Flight>());
+				}
+				
+				windowGroups.get(key).add(f);
+			}
+			
+			groups.put(t, new HashMap<Flight, List<Flight>>());
+			flightMap.put(t, new ArrayList<Flight>());
+			distribution.put(t, new HashMap<Flight, Map<RiskCategory, Integer>>());
+			
+			for(List<Flight> group : windowGroups.values()){
+				Flight representative = group.get(0);
+				
+				Map<RiskCategory, Integer> passengers = new HashMap<RiskCategory, Integer>();
+				
+				for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+					int count = 0;
+					
+					for(Flight f : group){
+						count += passengerDistribution.get(t, f, c);
+					}
+					
+					passengers.put(c, count);
+				}
+				
+				Flight aggregate = representative;
+				
+				if(group.size() > 1){
+					aggregate = new Flight(representative + "+" + (group.size() - 1) + "@" + t, representative.getFlightType(), representative.getDepartureTime(), passengers);
+					
+					aggregate.setPayoffs(representative.getDefUncovPayoff(), representative.getDefCovPayoff(), representative.getAttUncovPayoff(), representative.getAttCovPayoff());
+					
+					Map<Integer, Map<RiskCategory, Integer>> temporalPassengerDistribution = new HashMap<Integer, Map<RiskCategory, Integer>>();
+					
+					temporalPassengerDistribution.put(t, passengers);
+					aggregate.setTemporalPassengerDistribution(temporalPassengerDistribution);
+				}
+				
+				if(!defCovMap.containsKey(aggregate)){
+					flights.add(aggregate);
+					
+					defCovMap.put(aggregate, payoffStructure.defCov(representative));
+					defUncovMap.put(aggregate, payoffStructure.defUncov(representative));
+					attCovMap.put(aggregate, payoffStructure.attCov(representative));
+					attUncovMap.put(aggregate, payoffStructure.attUncov(representative));
+				}
+				
+				groups.get(t).put(aggregate, group);
+				flightMap.get(t).add(aggregate);
+				distribution.get(t).put(aggregate, passengers);
+			}
+			
+			originalFlightWindows += windowFlights.size();
+			reducedFlightWindows += flightMap.get(t).size();
+		}
+		
+		PayoffStructure reducedPayoffStructure = new PayoffStructure(defCovMap, defUncovMap, attCovMap, attUncovMap);
+		
+		reducedModel = model.withFlightMap(flights, flightMap, new PassengerDistribution(distribution), reducedPayoffStructure);
+		
+		return reducedModel;
+	}
+	
+	// Maps a per-passenger screening strategy (the form of DARMSMarginalSolver.getDefenderScreeningStrategy) of the reduced
+	// model back to the original flights; every member of a group receives the strategy of its aggregated flight
+	public Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> disaggregate(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> reducedStrategy){
+		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> strategy = new HashMap<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>>();
+		
+		for(int t : reducedStrategy.keySet()){
+			strategy.put(t, new HashMap<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>());
+			
+			for(Flight aggregate : reducedStrategy.get(t).keySet()){
+				for(Flight f : groups.get(t).get(aggregate)){
+					strategy.get(t).put(f, new HashMap<RiskCategory, Map<ScreeningOperation, Double>>());
+					
+					for(RiskCategory c : reducedStrategy.get(t).get(aggregate).keySet()){
+						strategy.get(t).get(f).put(c, new HashMap<ScreeningOperation, Double>(reducedStrategy.get(t).get(aggregate).get(c)));
+					}
+				}
+			}
+		}
+		
+		return strategy;
+	}
+	
+	// Same as disaggregate, for strategies expressed in passengers (DARMSMarginalSolver.getDefenderMarginalScreeningStrategy),
+	// which are split among the members in proportion to their passenger counts
+	public Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> disaggregateMarginal(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> reducedMarginalStrategy){
+		PassengerDistribution passengerDistribution = model.getPassengerDistribution();
+		PassengerDistribution reducedPassengerDistribution = reducedModel.getPassengerDistribution();
+		
+		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> strategy = new HashMap<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>>();
+		
+		for(int t : reducedMarginalStrategy.keySet()){
+			strategy.put(t, new HashMap<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>());
+			
+			for(Flight aggregate : reducedMarginalStrategy.get(t).keySet()){
+				for(Flight f : groups.get(t).get(aggregate)){
+					strategy.get(t).put(f, new HashMap<RiskCategory, Map<ScreeningOperation, Double>>());
+					
+					for(RiskCategory c : reducedMarginalStrategy.get(t).get(aggregate).keySet()){
+						strategy.get(t).get(f).put(c, new HashMap<ScreeningOperation, Double>());
+						
+						int total = reducedPassengerDistribution.get(t, aggregate, c);
+						double share = (total > 0) ? passengerDistribution.get(t, f, c) / (double)total : 0.0;
+						
+						for(ScreeningOperation o : reducedMarginalStrategy.get(t).get(aggregate).get(c).keySet()){
+							strategy.get(t).get(f).get(c).put(o, share * reducedMarginalStrategy.get(t).get(aggregate).get(c).get(o));
+						}
+					}
+				}
+			}
+		}
+		
+		return strategy;
+	}
+	
+	// Writes the disaggregated strategy in the format of DARMSMarginalSolver.writeDefenderScreeningStrategy, over the original flights
+	public void writeDefenderScreeningStrategy(String filename, Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> reducedStrategy) throws Exception{
+		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> strategy = disaggregate(reducedStrategy);
+		
+		FileWriter fw = new FileWriter(new File(filename));
+		
+		List<RiskCategory> riskCategories = new ArrayList<RiskCategory>(model.getAdversaryDistribution().keySet());
+		Collections.sort(riskCategories);
+		
+		List<ScreeningOperation> screeningOperations = model.getScreeningOperations();
+		
+		String line = "TimeWindow, Flight, RiskCategory";
+		
+		for(ScreeningOperation o : screeningOperations){
+			line += ", " + o;
+		}
+		
+		fw.write(line);
+		
+		for(int t : model.getTimeWindows()){
+			if(!strategy.containsKey(t)){
+				continue;
+			}
+			
+			for(Flight f : model.getFlights(t)){
+				for(RiskCategory c : riskCategories){
+					line = "\n" + t + ", " + f + ", " + c;
+					
+					for(ScreeningOperation o : screeningOperations){
+						line += ", " + strategy.get(t).get(f).get(c).get(o);
+					}
+					
+					fw.write(line);
+				}
+			}
+		}
+		
+		fw.close();
+	}
+	
+	// Same as DARMSMarginalSolver.writeAdversaryStrategies. The members of a group are equally good targets, so an attack on an
+	// aggregated flight is reported against the first original flight of its group
+	public void writeAdversaryStrategies(String filename, Map<RiskCategory, Map<Integer, Map<Flight, AttackMethod>>> reducedStrategies) throws Exception{
+		FileWriter fw = new FileWriter(new File(filename));
+		
+		List<RiskCategory> riskCategories = new ArrayList<RiskCategory>(model.getAdversaryDistribution().keySet());
+		Collections.sort(riskCategories);
+		
+		String line = "RiskCategory, TimeWindow, Flight, AttackMethod";
+		
+		fw.write(line);
+		
+		for(RiskCategory c : riskCategories){
+			for(int t : reducedStrategies.get(c).keySet()){
+				for(Flight aggregate : reducedStrategies.get(c).get(t).keySet()){
+					line = "\n" + c + ", " + t + ", " + groups.get(t).get(aggregate).get(0) + ", " + reducedStrategies.get(c).get(t).get(aggregate);
+					
+					fw.write(line);
+				}
+			}
+		}
+		
+		fw.close();
+	}
+	
+	// Same as DARMSMarginalSolver.writeRiskCategoryCoverage; every member is covered like its aggregated flight
+	public void writeRiskCategoryCoverage(String filename, Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>> reducedCoverage) throws Exception{
+		FileWriter fw = new FileWriter(new File(filename));
+		
+		PayoffStructure payoffStructure = model.getPayoffStructure();
+		
+		List<AttackMethod> attackMethods = model.getAttackMethods();
+		
+		List<RiskCategory> riskCategories = new ArrayList<RiskCategory>(model.getAdversaryDistribution().keySet());
+		Collections.sort(riskCategories);
+		
+		String line = "RiskCategory, TimeWindow, Flight";
+		
+		for(AttackMethod m : attackMethods){
+			line += ", " + m + "_coverage, " + m + "_payoff, " + m + "_utility";
+		}
+		
+		fw.write(line);
+		
+		for(RiskCategory c : riskCategories){
+			for(int t : model.getTimeWindows()){
+				if(!reducedCoverage.containsKey(t)){
+					continue;
+				}
+				
+				for(Flight aggregate : reducedModel.getFlights(t)){
+					for(Flight f : groups.get(t).get(aggregate)){
+						line = "\n" + c + ", " + t + ", " + f;
+						
+						for(AttackMethod m : attackMethods){
+							double coverage = reducedCoverage.get(t).get(c).get(aggregate).get(m);
+							double payoff = coverage * payoffStructure.attCov(f) + ((1.0 - coverage) * payoffStructure.attUncov(f));
+							double utility = payoff * model.getAdversaryDistribution().get(c);
+							
+							line += ", " + coverage + ", " + payoff + ", " + utility;
+						}
+						
+						fw.write(line);
+					}
+				}
+			}
+		}
+		
+		fw.close();
+	}
+	
+	// Same as DARMSMarginalSolver.writeTemporalPassengerDistribution, with the passenger counts of the original flights
+	public void writeTemporalPassengerDistribution(String filename) throws Exception{
+		FileWriter fw = new FileWriter(new File(filename));
+		
+		PassengerDistribution passengerDistribution = model.getPassengerDistribution();
+		
+		List<RiskCategory> riskCategories = new ArrayList<RiskCategory>(model.getAdversaryDistribution().keySet());
+		Collections.sort(riskCategories);
+		
+		String line = "TimeWindow, Flight";
+		
+		for(RiskCategory c : riskCategories){
+			line += ", " + c;
+		}
+		
+		line += ", " + "TOTAL";
+		
+		fw.write(line);
+		
+		for(int t : model.getTimeWindows()){
+			if(model.getFlights(t) == null){
+				continue;
+			}
+			
+			for(Flight f : model.getFlights(t)){
+				line = "\n" + t + ", " + f;
+				
+				int totalPassengers = 0;
+				
+				for(RiskCategory c : riskCategories){
+					line += ", " + passengerDistribution.get(t, f, c);
+					
+					totalPassengers += passengerDistribution.get(t, f, c);
+				}
+				
+				line += ", " + totalPassengers;
+				
+				fw.write(line);
+			}
+		}
+		
+		fw.close();
+	}
+	
+	public int getOriginalFlightWindows(){
+		return originalFlightWindows;
+	}
+	
+	public int getReducedFlightWindows(){
+		return reducedFlightWindows;
+	}
+	
+	// s variables (and the x and a variables of the general-sum LP) of every flight-window merged away
+	public int getEliminatedVariables(boolean zeroSum){
+		int numCategories = model.getAdversaryDistribution().size();
+		int numOperations = model.getScreeningOperations().size();
+		int numMethods = model.getAttackMethods().size();
+		
+		int perFlightWindow = numCategories * (numOperations + (zeroSum ? 0 : numMethods * 2));
+		
+		return (originalFlightWindows - reducedFlightWindows) * perFlightWindow;
+	}
+	
+	public String getReport(boolean zeroSum){
+		return "Flight aggregation: " + originalFlightWindows + " -> " + reducedFlightWindows + " flight-windows, " + getEliminatedVariables(zeroSum) + " variables eliminated";
+	}
+}
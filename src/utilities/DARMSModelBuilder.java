@@ -20,6 +20,10 @@ import models.ScreeningResource;
 public class DARMSModelBuilder {
 	public static boolean verb;
 	
+	public static DARMSModel buildModel(String inputFilename, boolean verbose) throws Exception{
+		return buildModel(inputFilename, verbose, 0);
+	}
+	
 	public static DARMSModel buildModel(String inputFilename, boolean verbose, int thisTestNumber) throws Exception{
 		verb = verbose;
 		
@@ -0,0 +1,120 @@
+package utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import models.AttackMethod;
+import models.DARMSModel;
+import models.RiskCategory;
+import models.ScreeningOperation;
+
+/*
+ * Removes screening operations that are dominated by another operation: one that uses a subset of its resources and detects
+ * every attack method of every risk category at least as well. Moving the mass of a dominated operation to its dominator never
+ * loads a resource more and never lowers coverage, so the zero-sum optimum is unchanged. In the general-sum game higher coverage
+ * can move the attacker to a target worse for the defender, hence the presolve is restricted to zero-sum models.
+ */
+public class DARMSOperationPresolver {
+	private DARMSModel model;
+	
+	private List<ScreeningOperation> keptOperations;
+	private List<ScreeningOperation> removedOperations;
+	
+	public DARMSOperationPresolver(DARMSModel model){
+		this.model = model;
+	}
+	
+	public DARMSModel presolve(boolean zeroSum) throws Exception{
+		if(!zeroSum){
+			throw new Exception("Dominated operation elimination is only valid for the zero-sum formulation.");
+		}
+		
+		List<ScreeningOperation> operations = model.getScreeningOperations();
+		
+		keptOperations = new ArrayList<ScreeningOperation>();
+		removedOperations = new ArrayList<ScreeningOperation>();
+		
+		for(ScreeningOperation o1 : operations){
+			boolean dominated = false;
+			
+			for(ScreeningOperation o2 : operations){
+				if(o1 != o2 && !removedOperations.contains(o2) && dominates(o2, o1)){
+					// Operations dominating each other are identical for the LP; keep the one with the lowest id
+					if(!dominates(o1, o2) || o2.getID() < o1.getID()){
+						dominated = true;
+						break;
+					}
+				}
+			}
+			
+			if(dominated){
+				removedOperations.add(o1);
+			}
+			else{
+				keptOperations.add(o1);
+			}
+		}
+		
+		if(removedOperations.isEmpty()){
+			return model;
+		}
+		
+		return model.withScreeningOperations(keptOperations);
+	}
+	
+	private boolean dominates(ScreeningOperation o2, ScreeningOperation o1){
+		if(!o1.getResources().containsAll(o2.getResources())){
+			return false;
+		}
+		
+		for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+			for(AttackMethod m : model.getAttackMethods()){
+				if(model.effectiveness(o2, c, m) < model.effectiveness(o1, c, m) - DARMSModel.EPSILON){
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	public List<ScreeningOperation> getRemovedOperations(){
+		return removedOperations;
+	}
+	
+	public List<ScreeningOperation> getKeptOperations(){
+		return keptOperations;
+	}
+	
+	private int getFlightWindows(){
+		int flightWindows = 0;
+		
+		for(int t : model.getTimeWindows()){
+			if(model.getFlights(t) != null){
+				flightWindows += model.getFlights(t).size();
+			}
+		}
+		
+		return flightWindows;
+	}
+	
+	// One s variable per flight-window, risk category and removed operation
+	public int getEliminatedVariables(){
+		return removedOperations.size() * getFlightWindows() * model.getAdversaryDistribution().size();
+	}
+	
+	// Entries of the removed s columns in the screening action, throughput and coverage rows (static screening rows excluded)
+	public int getEliminatedNonzeros(){
+		int perColumn = 0;
+		
+		for(ScreeningOperation o : removedOperations){
+			perColumn += 1 + o.getResources().size() + model.getAttackMethods().size();
+		}
+		
+		return perColumn * getFlightWindows() * model.getAdversaryDistribution().size();
+	}
+	
+	public String getReport(){
+		return "Operation presolve: " + model.getScreeningOperations().size() + " -> " + keptOperations.size() + " operations " + removedOperations + ", " + getEliminatedVariables() + " variables and " + getEliminatedNonzeros() + " nonzeros eliminated";
+	}
+}
@@ -0,0 +1,408 @@
+package utilities;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import models.AttackMethod;
+import models.DARMSModel;
+import models.Flight;
+import models.PassengerDistribution;
+import models.PayoffStructure;
+import models.PostScreeningResource;
+import models.RiskCategory;
+import models.ScreeningOperation;
+import models.ScreeningResource;
+
+/*
+ * Solver results on local disk, one file per model fingerprint. The fingerprint is a SHA-256 over a canonical description
+ * of the built model and the solver settings, so it does not depend on object ids or hash order and is stable across runs.
+ * Stored results refer to flights, risk categories, operations and methods by their position in the model, which the
+ * fingerprint also covers. Files are evicted least recently used first once the directory grows past maxBytes.
+ */
+public class DARMSResultCache {
+	private File directory;
+	private long maxBytes;
+	
+	private int hits;
+	private int misses;
+	
+	private static final String SUFFIX = ".csv";
+	
+	public static class Result {
+		private Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> defenderScreeningStrategy;
+		private Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>> riskCategoryCoverage;
+		private Map<RiskCategory, Double> defenderPayoffs;
+		private Map<RiskCategory, Double> adversaryPayoffs;
+		private Map<RiskCategory, Map<Integer, Map<Flight, AttackMethod>>> adversaryStrategies;
+		
+		public Result(Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> defenderScreeningStrategy,
+				Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>> riskCategoryCoverage,
+				Map<RiskCategory, Double> defenderPayoffs,
+				Map<RiskCategory, Double> adversaryPayoffs,
+				Map<RiskCategory, Map<Integer, Map<Flight, AttackMethod>>> adversaryStrategies){
+			this.defenderScreeningStrategy = defenderScreeningStrategy;
+			this.riskCategoryCoverage = riskCategoryCoverage;
+			this.defenderPayoffs = defenderPayoffs;
+			this.adversaryPayoffs = adversaryPayoffs;
+			this.adversaryStrategies = adversaryStrategies;
+		}
+		
+		public Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> getDefenderScreeningStrategy(){
+			return defenderScreeningStrategy;
+		}
+		
+		public Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>> getRiskCategoryCoverage(){
+			return riskCategoryCoverage;
+		}
+		
+		public Map<RiskCategory, Double> getDefenderPayoffs(){
+			return defenderPayoffs;
+		}
+		
+		public Map<RiskCategory, Double> getAdversaryPayoffs(){
+			return adversaryPayoffs;
+		}
+		
+		public Map<RiskCategory, Map<Integer, Map<Flight, AttackMethod>>> getAdversaryStrategies(){
+			return adversaryStrategies;
+		}
+	}
+	
+	public DARMSResultCache(String directory, long maxBytes) throws Exception{
+		this.directory = new File(directory);
+		this.maxBytes = maxBytes;
+		
+		if(!this.directory.isDirectory() && !this.directory.mkdirs()){
+			throw new Exception("Unable to create result cache directory: " + directory);
+		}
+	}
+	
+	public static String fingerprint(DARMSModel model, PassengerDistribution passengerDistribution, PayoffStructure payoffStructure, Map<RiskCategory, Double> adversaryDistribution, String settings) throws Exception{
+		StringBuilder s = new StringBuilder();
+		
+		s.append("Settings, ").append(settings).append("\n");
+		s.append("FlightByFlight, ").append(model.flightByFlight()).append("\n");
+		s.append("TimeWindows, ").append(model.getTimeWindows()).append("\n");
+		
+		List<RiskCategory> riskCategories = riskCategories(model);
+		List<ScreeningResource> screeningResources = new ArrayList<ScreeningResource>(model.getScreeningResources().keySet());
+		Collections.sort(screeningResources);
+		
+		for(RiskCategory c : riskCategories){
+			s.append("RiskCategory, ").append(c).append(", ").append(adversaryDistribution.get(c)).append("\n");
+		}
+		
+		for(AttackMethod m : model.getAttackMethods()){
+			s.append("AttackMethod, ").append(m).append("\n");
+		}
+		
+		for(ScreeningResource r : screeningResources){
+			s.append("ScreeningResource, ").append(r).append(", ").append(model.getScreeningResources().get(r)).append(", ").append(r.capacity()).append(", ").append(r.screeningTime()).append("\n");
+		}
+		
+		for(ScreeningOperation o : model.getScreeningOperations()){
+			List<String> resources = new ArrayList<String>();
+			
+			for(ScreeningResource r : o.getResources()){
+				resources.add(r.toString());
+			}
+			
+			Collections.sort(resources);
+			
+			s.append("ScreeningOperation, ").append(resources);
+			
+			for(RiskCategory c : riskCategories){
+				for(AttackMethod m : model.getAttackMethods()){
+					s.append(", ").append(model.effectiveness(o, c, m));
+				}
+			}
+			
+			s.append("\n");
+		}
+		
+		List<PostScreeningResource> postScreeningResources = new ArrayList<PostScreeningResource>(model.getPostScreeningResources().keySet());
+		
+		Collections.sort(postScreeningResources, new Comparator<PostScreeningResource>(){
+			public int compare(PostScreeningResource r1, PostScreeningResource r2){
+				return r1.toString().compareTo(r2.toString());
+			}
+		});
+		
+		for(PostScreeningResource r : postScreeningResources){
+			s.append("PostScreeningResource, ").append(r).append(", ").append(model.getPostScreeningResources().get(r));
+			
+			for(AttackMethod m : model.getAttackMethods()){
+				s.append(", ").append(r.effectiveness(m));
+			}
+			
+			s.append("\n");
+		}
+		
+		for(int t : model.getTimeWindows()){
+			s.append("Fines, ").append(t);
+			
+			for(ScreeningResource r : screeningResources){
+				s.append(", ").append(model.getResourceFines().get(t).get(r));
+			}
+			
+			s.append("\n");
+		}
+		
+		for(Flight f : model.getFlights()){
+			s.append("Flight, ").append(f).append(", ").append(f.getFlightType()).append(", ").append(f.getDepartureTime());
+			s.append(", ").append(payoffStructure.defCov(f)).append(", ").append(payoffStructure.defUncov(f));
+			s.append(", ").append(payoffStructure.attCov(f)).append(", ").append(payoffStructure.attUncov(f)).append("\n");
+		}
+		
+		for(int t : model.getTimeWindows()){
+			for(Flight f : model.getFlights(t)){
+				s.append("Passengers, ").append(t).append(", ").append(model.getFlights().indexOf(f));
+				
+				for(RiskCategory c : riskCategories){
+					s.append(", ").append(passengerDistribution.get(t, f, c));
+				}
+				
+				s.append("\n");
+			}
+		}
+		
+		byte[] digest = MessageDigest.getInstance("SHA-256").digest(s.toString().getBytes("UTF-8"));
+		
+		StringBuilder hex = new StringBuilder();
+		
+		for(byte b : digest){
+			hex.append(String.format("%02x", b));
+		}
+		
+		return hex.toString();
+	}
+	
+	public synchronized Result get(String key, DARMSModel model) throws Exception{
+		File file = new File(directory, key + SUFFIX);
+		
+		if(!file.isFile()){
+			misses++;
+			return null;
+		}
+		
+		List<RiskCategory> riskCategories = riskCategories(model);
+		List<Flight> flights = model.getFlights();
+		List<ScreeningOperation> screeningOperations = model.getScreeningOperations();
+		List<AttackMethod> attackMethods = model.getAttackMethods();
+		
+		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> defenderScreeningStrategy = new HashMap<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>>();
+		Map<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>> riskCategoryCoverage = new HashMap<Integer, Map<RiskCategory, Map<Flight, Map<AttackMethod, Double>>>>();
+		Map<RiskCategory, Double> defenderPayoffs = new HashMap<RiskCategory, Double>();
+		Map<RiskCategory, Double> adversaryPayoffs = new HashMap<RiskCategory, Double>();
+		Map<RiskCategory, Map<Integer, Map<Flight, AttackMethod>>> adversaryStrategies = new HashMap<RiskCategory, Map<Integer, Map<Flight, AttackMethod>>>();
+		
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		
+		try{
+			String line = reader.readLine();
+			
+			while((line = reader.readLine()) != null){
+				String[] values = line.split(",");
+				
+				for(int i = 0; i < values.length; i++){
+					values[i] = values[i].trim();
+				}
+				
+				if(values[0].equals("Strategy")){
+					int t = Integer.parseInt(values[1]);
+					Flight f = flights.get(Integer.parseInt(values[2]));
+					RiskCategory c = riskCategories.get(Integer.parseInt(values[3]));
+					ScreeningOperation o = screeningOperations.get(Integer.parseInt(values[4]));
+					
+					put(put(put(defenderScreeningStrategy, t), f), c).put(o, Double.parseDouble(values[5]));
+				}
+				else if(values[0].equals("Coverage")){
+					int t = Integer.parseInt(values[1]);
+					RiskCategory c = riskCategories.get(Integer.parseInt(values[2]));
+					Flight f = flights.get(Integer.parseInt(values[3]));
+					AttackMethod m = attackMethods.get(Integer.parseInt(values[4]));
+					
+					put(put(put(riskCategoryCoverage, t), c), f).put(m, Double.parseDouble(values[5]));
+				}
+				else if(values[0].equals("DefenderPayoff")){
+					defenderPayoffs.put(riskCategories.get(Integer.parseInt(values[1])), Double.parseDouble(values[2]));
+				}
+				else if(values[0].equals("AdversaryPayoff")){
+					adversaryPayoffs.put(riskCategories.get(Integer.parseInt(values[1])), Double.parseDouble(values[2]));
+				}
+				else if(values[0].equals("AdversaryStrategy")){
+					RiskCategory c = riskCategories.get(Integer.parseInt(values[1]));
+					int t = Integer.parseInt(values[2]);
+					Flight f = flights.get(Integer.parseInt(values[3]));
+					AttackMethod m = attackMethods.get(Integer.parseInt(values[4]));
+					
+					put(put(adversaryStrategies, c), t).put(f, m);
+				}
+				else{
+					throw new Exception("Invalid result cache entry " + file + ": " + line);
+				}
+			}
+		}
+		finally{
+			reader.close();
+		}
+		
+		file.setLastModified(System.currentTimeMillis());
+		
+		hits++;
+		
+		return new Result(defenderScreeningStrategy, riskCategoryCoverage, defenderPayoffs, adversaryPayoffs, adversaryStrategies);
+	}
+	
+	public synchronized void put(String key, DARMSModel model, Result result) throws Exception{
+		List<RiskCategory> riskCategories = riskCategories(model);
+		List<Flight> flights = model.getFlights();
+		List<ScreeningOperation> screeningOperations = model.getScreeningOperations();
+		List<AttackMethod> attackMethods = model.getAttackMethods();
+		
+		// Written under a temporary name and renamed, so other processes sharing the directory never read a partial entry
+		File temporary = new File(directory, key + ".tmp");
+		
+		FileWriter fw = new FileWriter(temporary);
+		
+		fw.write("Type, Keys, Value");
+		
+		for(RiskCategory c : result.getDefenderPayoffs().keySet()){
+			fw.write("\nDefenderPayoff, " + riskCategories.indexOf(c) + ", " + result.getDefenderPayoffs().get(c));
+		}
+		
+		for(RiskCategory c : result.getAdversaryPayoffs().keySet()){
+			fw.write("\nAdversaryPayoff, " + riskCategories.indexOf(c) + ", " + result.getAdversaryPayoffs().get(c));
+		}
+		
+		for(RiskCategory c : result.getAdversaryStrategies().keySet()){
+			for(int t : result.getAdversaryStrategies().get(c).keySet()){
+				for(Flight f : result.getAdversaryStrategies().get(c).get(t).keySet()){
+					AttackMethod m = result.getAdversaryStrategies().get(c).get(t).get(f);
+					
+					fw.write("\nAdversaryStrategy, " + riskCategories.indexOf(c) + ", " + t + ", " + flights.indexOf(f) + ", " + attackMethods.indexOf(m));
+				}
+			}
+		}
+		
+		for(int t : result.getDefenderScreeningStrategy().keySet()){
+			for(Flight f : result.getDefenderScreeningStrategy().get(t).keySet()){
+				for(RiskCategory c : result.getDefenderScreeningStrategy().get(t).get(f).keySet()){
+					for(ScreeningOperation o : result.getDefenderScreeningStrategy().get(t).get(f).get(c).keySet()){
+						fw.write("\nStrategy, " + t + ", " + flights.indexOf(f) + ", " + riskCategories.indexOf(c) + ", " + screeningOperations.indexOf(o) + ", " + result.getDefenderScreeningStrategy().get(t).get(f).get(c).get(o));
+					}
+				}
+			}
+		}
+		
+		for(int t : result.getRiskCategoryCoverage().keySet()){
+			for(RiskCategory c : result.getRiskCategoryCoverage().get(t).keySet()){
+				for(Flight f : result.getRiskCategoryCoverage().get(t).get(c).keySet()){
+					for(AttackMethod m : result.getRiskCategoryCoverage().get(t).get(c).get(f).keySet()){
+						fw.write("\nCoverage, " + t + ", " + riskCategories.indexOf(c) + ", " + flights.indexOf(f) + ", " + attackMethods.indexOf(m) + ", " + result.getRiskCategoryCoverage().get(t).get(c).get(f).get(m));
+					}
+				}
+			}
+		}
+		
+		fw.close();
+		
+		File file = new File(directory, key + SUFFIX);
+		
+		if(file.exists()){
+			file.delete();
+		}
+		
+		if(!temporary.renameTo(file)){
+			temporary.delete();
+			throw new Exception("Unable to store result cache entry: " + file);
+		}
+		
+		evict(file);
+	}
+	
+	// Deletes the least recently used entries until the directory fits in maxBytes; the entry just written is always kept
+	private void evict(File keep){
+		File[] files = directory.listFiles();
+		
+		if(files == null){
+			return;
+		}
+		
+		List<File> entries = new ArrayList<File>();
+		long totalBytes = 0;
+		
+		for(File file : files){
+			if(file.isFile() && file.getName().endsWith(SUFFIX)){
+				entries.add(file);
+				totalBytes += file.length();
+			}
+		}
+		
+		Collections.sort(entries, new Comparator<File>(){
+			public int compare(File f1, File f2){
+				return Long.compare(f1.lastModified(), f2.lastModified());
+			}
+		});
+		
+		for(File file : entries){
+			if(totalBytes <= maxBytes){
+				break;
+			}
+			
+			if(!file.equals(keep)){
+				long length = file.length();
+				
+				if(file.delete()){
+					totalBytes -= length;
+				}
+			}
+		}
+	}
+	
+	public synchronized void clear(){
+		File[] files = directory.listFiles();
+		
+		if(files != null){
+			for(File file : files){
+				if(file.isFile() && file.getName().endsWith(SUFFIX)){
+					file.delete();
+				}
+			}
+		}
+	}
+	
+	public synchronized int getHits(){
+		return hits;
+	}
+	
+	public synchronized int getMisses(){
+		return misses;
+	}
+	
+	private static List<RiskCategory> riskCategories(DARMSModel model){
+		RiskCategory[] riskCategories = model.getAdversaryDistribution().keySet().toArray(new RiskCategory[0]);
+		
+		Arrays.sort(riskCategories);
+		
+		return Arrays.asList(riskCategories);
+	}
+	
+	private static <K, V, W> Map<V, W> put(Map<K, Map<V, W>> map, K key){
+		if(!map.containsKey(key)){
+			map.put(key, new HashMap<V, W>());
+		}
+		
+		return map.get(key);
+	}
+}
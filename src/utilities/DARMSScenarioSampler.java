@@ -0,0 +1,290 @@
+package utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.math3.random.SobolSequenceGenerator;
+
+import models.DARMSModel;
+import models.Flight;
+import models.PassengerDistribution;
+import models.RiskCategory;
+
+/*
+ * Passenger distribution scenarios in the form of DARMSModel.getRandomizedPassengerDistributions: the passengers of each
+ * (f, c) are spread over the flight's time windows in proportion to one weight in [0, 1) per window. Each weight is one
+ * coordinate of a point in the unit cube. The points come from a seeded uniform stream, a Latin hypercube (one point per
+ * stratum in every coordinate) or a randomly shifted Sobol sequence. Scenarios are kept as an int matrix with one row per
+ * scenario and one column per (f, c, t).
+ */
+public class DARMSScenarioSampler {
+	public enum Method { UNIFORM, LATIN_HYPERCUBE, SOBOL }
+	
+	private Method method;
+	private long seed;
+	private int threads = 1;
+	
+	// Column j holds the passengers of flights[j], categories[j] in timeWindows[j]; the windows of one (f, c) are contiguous
+	private Flight[] flights;
+	private RiskCategory[] categories;
+	private int[] timeWindows;
+	private int[] groupStart;
+	private int[] groupSize;
+	
+	public DARMSScenarioSampler(DARMSModel model, Method method, long seed){
+		this.method = method;
+		this.seed = seed;
+		
+		List<Flight> columnFlights = new ArrayList<Flight>();
+		List<RiskCategory> columnCategories = new ArrayList<RiskCategory>();
+		List<Integer> columnTimeWindows = new ArrayList<Integer>();
+		List<Integer> starts = new ArrayList<Integer>();
+		List<Integer> sizes = new ArrayList<Integer>();
+		
+		for(Flight f : model.getFlights()){
+			List<RiskCategory> riskCategories = new ArrayList<RiskCategory>(f.getPassengerDistribution().keySet());
+			Collections.sort(riskCategories);
+			
+			List<Integer> windows = new ArrayList<Integer>(f.getTemporalPassengerDistribution().keySet());
+			Collections.sort(windows);
+			
+			for(RiskCategory c : riskCategories){
+				starts.add(columnFlights.size());
+				sizes.add(windows.size());
+				
+				for(int t : windows){
+					columnFlights.add(f);
+					columnCategories.add(c);
+					columnTimeWindows.add(t);
+				}
+			}
+		}
+		
+		flights = columnFlights.toArray(new Flight[0]);
+		categories = columnCategories.toArray(new RiskCategory[0]);
+		timeWindows = new int[columnTimeWindows.size()];
+		groupStart = new int[starts.size()];
+		groupSize = new int[sizes.size()];
+		
+		for(int j = 0; j < timeWindows.length; j++){
+			timeWindows[j] = columnTimeWindows.get(j);
+		}
+		
+		for(int g = 0; g < groupStart.length; g++){
+			groupStart[g] = starts.get(g);
+			groupSize[g] = sizes.get(g);
+		}
+	}
+	
+	// Rows are converted to passenger counts by this many workers
+	public void setThreads(int threads){
+		this.threads = threads;
+	}
+	
+	public int getDimension(){
+		return timeWindows.length;
+	}
+	
+	public int[][] sampleMatrix(int numScenarios) throws Exception{
+		final double[][] points = samplePoints(numScenarios);
+		final int[][] scenarios = new int[numScenarios][];
+		
+		final AtomicInteger nextScenario = new AtomicInteger(0);
+		
+		int workers = Math.max(1, Math.min(threads, numScenarios));
+		
+		if(workers == 1){
+			for(int i = 0; i < numScenarios; i++){
+				scenarios[i] = toPassengerCounts(points[i]);
+			}
+			
+			return scenarios;
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		
+		try{
+			for(int w = 0; w < workers; w++){
+				futures.add(executor.submit(new Callable<Void>(){
+					public Void call(){
+						int index;
+						
+						while((index = nextScenario.getAndIncrement()) < scenarios.length){
+							scenarios[index] = toPassengerCounts(points[index]);
+						}
+						
+						return null;
+					}
+				}));
+			}
+			
+			for(Future<Void> future : futures){
+				future.get();
+			}
+		}
+		finally{
+			executor.shutdownNow();
+		}
+		
+		return scenarios;
+	}
+	
+	public List<PassengerDistribution> samplePassengerDistributions(int numScenarios) throws Exception{
+		List<PassengerDistribution> passengerDistributions = new ArrayList<PassengerDistribution>();
+		
+		for(int[] scenario : sampleMatrix(numScenarios)){
+			passengerDistributions.add(toPassengerDistribution(scenario));
+		}
+		
+		return passengerDistributions;
+	}
+	
+	public PassengerDistribution toPassengerDistribution(int[] scenario){
+		Map<Integer, Map<Flight, Map<RiskCategory, Integer>>> distribution = new HashMap<Integer, Map<Flight, Map<RiskCategory, Integer>>>();
+		
+		for(int j = 0; j < scenario.length; j++){
+			if(!distribution.containsKey(timeWindows[j])){
+				distribution.put(timeWindows[j], new HashMap<Flight, Map<RiskCategory, Integer>>());
+			}
+			
+			if(!distribution.get(timeWindows[j]).containsKey(flights[j])){
+				distribution.get(timeWindows[j]).put(flights[j], new HashMap<RiskCategory, Integer>());
+			}
+			
+			distribution.get(timeWindows[j]).get(flights[j]).put(categories[j], scenario[j]);
+		}
+		
+		return new PassengerDistribution(distribution);
+	}
+	
+	private double[][] samplePoints(int numScenarios) throws Exception{
+		int dimension = getDimension();
+		
+		double[][] points = new double[numScenarios][dimension];
+		
+		Random random = new Random(seed);
+		
+		if(method == Method.UNIFORM){
+			for(int i = 0; i < numScenarios; i++){
+				for(int j = 0; j < dimension; j++){
+					points[i][j] = random.nextDouble();
+				}
+			}
+		}
+		else if(method == Method.LATIN_HYPERCUBE){
+			int[] strata = new int[numScenarios];
+			
+			for(int j = 0; j < dimension; j++){
+				for(int i = 0; i < numScenarios; i++){
+					strata[i] = i;
+				}
+				
+				// Fisher-Yates
+				for(int i = numScenarios - 1; i > 0; i--){
+					int k = random.nextInt(i + 1);
+					int swap = strata[i];
+					
+					strata[i] = strata[k];
+					strata[k] = swap;
+				}
+				
+				for(int i = 0; i < numScenarios; i++){
+					points[i][j] = (strata[i] + random.nextDouble()) / numScenarios;
+				}
+			}
+		}
+		else{
+			if(dimension > 1000){
+				throw new Exception("Sobol sampling supports at most 1000 (flight, category, time window) columns: " + dimension);
+			}
+			
+			SobolSequenceGenerator sobol = new SobolSequenceGenerator(dimension);
+			
+			// The first point of the sequence is the origin
+			sobol.skipTo(1);
+			
+			// A random shift modulo one keeps the low discrepancy and makes the seed matter
+			double[] shift = new double[dimension];
+			
+			for(int j = 0; j < dimension; j++){
+				shift[j] = random.nextDouble();
+			}
+			
+			for(int i = 0; i < numScenarios; i++){
+				double[] point = sobol.nextVector();
+				
+				for(int j = 0; j < dimension; j++){
+					points[i][j] = (point[j] + shift[j]) % 1.0;
+				}
+			}
+		}
+		
+		return points;
+	}
+	
+	// Proportional split of each (f, c) over its windows, rounded by largest remainder so the totals are exact
+	private int[] toPassengerCounts(double[] point){
+		int[] scenario = new int[point.length];
+		
+		for(int g = 0; g < groupStart.length; g++){
+			int start = groupStart[g];
+			int size = groupSize[g];
+			
+			if(size == 0){
+				continue;
+			}
+			
+			int passengers = flights[start].getPassengerDistribution().get(categories[start]);
+			
+			double totalWeight = 0.0;
+			
+			for(int j = start; j < start + size; j++){
+				totalWeight += point[j];
+			}
+			
+			final double[] remainders = new double[size];
+			int assigned = 0;
+			
+			for(int j = start; j < start + size; j++){
+				double share = (totalWeight > 0) ? passengers * point[j] / totalWeight : passengers / (double)size;
+				
+				scenario[j] = (int)share;
+				remainders[j - start] = share - scenario[j];
+				
+				assigned += scenario[j];
+			}
+			
+			Integer[] order = new Integer[size];
+			
+			for(int k = 0; k < size; k++){
+				order[k] = k;
+			}
+			
+			Arrays.sort(order, new Comparator<Integer>(){
+				public int compare(Integer k1, Integer k2){
+					return Double.compare(remainders[k2], remainders[k1]);
+				}
+			});
+			
+			for(int k = 0; assigned < passengers; k = (k + 1) % size){
+				scenario[start + order[k]]++;
+				assigned++;
+			}
+		}
+		
+		return scenario;
+	}
+}
@@ -0,0 +1,147 @@
+package utilities;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import models.DARMSModel;
+import models.Flight;
+import models.PureStrategy;
+import models.RiskCategory;
+import models.ScreeningOperation;
+
+/*
+ * Hands out the screening operation of every arriving passenger according to a sampled pure strategy. Each (t, f, c)
+ * bucket holds the operations of its passengers as a shuffled sequence, so the order within a bucket is random, and an
+ * atomic cursor into it; lane threads claim the next slot with a single getAndIncrement and never block each other.
+ * The bucket maps are built once and only read afterwards. There is no counter shared by all lanes: the dispensed and
+ * exhausted totals are derived from the bucket cursors when asked for.
+ */
+public class DARMSScreeningDispenser {
+	private final DARMSModel model;
+	private final Map<Integer, Map<Flight, Map<RiskCategory, Bucket>>> buckets;
+	
+	private final List<Bucket> bucketList = new ArrayList<Bucket>();
+	
+	private static class Bucket {
+		private final int[] sequence;
+		private final AtomicInteger cursor = new AtomicInteger(0);
+		private final AtomicIntegerArray remaining;
+		
+		private Bucket(int[] sequence, int numOperations){
+			this.sequence = sequence;
+			this.remaining = new AtomicIntegerArray(numOperations);
+			
+			for(int i : sequence){
+				remaining.incrementAndGet(i);
+			}
+		}
+	}
+	
+	public DARMSScreeningDispenser(DARMSModel model, PureStrategy p, long seed){
+		this.model = model;
+		
+		List<ScreeningOperation> screeningOperations = model.getScreeningOperations();
+		
+		Random random = new Random(seed);
+		
+		buckets = new HashMap<Integer, Map<Flight, Map<RiskCategory, Bucket>>>();
+		
+		for(int t : model.getTimeWindows()){
+			buckets.put(t, new HashMap<Flight, Map<RiskCategory, Bucket>>());
+			
+			for(Flight f : model.getFlights(t)){
+				buckets.get(t).put(f, new HashMap<RiskCategory, Bucket>());
+				
+				for(RiskCategory c : model.getAdversaryDistribution().keySet()){
+					int size = 0;
+					
+					for(ScreeningOperation o : screeningOperations){
+						size += p.get(t, f, c, o);
+					}
+					
+					int[] sequence = new int[size];
+					int index = 0;
+					
+					for(int i = 0; i < screeningOperations.size(); i++){
+						for(int n = p.get(t, f, c, screeningOperations.get(i)); n > 0; n--){
+							sequence[index++] = i;
+						}
+					}
+					
+					// Fisher-Yates
+					for(int i = sequence.length - 1; i > 0; i--){
+						int j = random.nextInt(i + 1);
+						int swap = sequence[i];
+						
+						sequence[i] = sequence[j];
+						sequence[j] = swap;
+					}
+					
+					Bucket bucket = new Bucket(sequence, screeningOperations.size());
+					
+					buckets.get(t).get(f).put(c, bucket);
+					bucketList.add(bucket);
+				}
+			}
+		}
+	}
+	
+	// The operation for the next passenger of (t, f, c), or null once the strategy has no assignment left for the bucket
+	public ScreeningOperation dispense(int t, Flight f, RiskCategory c){
+		Bucket bucket = buckets.get(t).get(f).get(c);
+		
+		int index = bucket.cursor.getAndIncrement();
+		
+		if(index >= bucket.sequence.length){
+			return null;
+		}
+		
+		int operation = bucket.sequence[index];
+		
+		bucket.remaining.decrementAndGet(operation);
+		
+		return model.getScreeningOperations().get(operation);
+	}
+	
+	public int getRemaining(int t, Flight f, RiskCategory c, ScreeningOperation o){
+		return buckets.get(t).get(f).get(c).remaining.get(model.getScreeningOperations().indexOf(o));
+	}
+	
+	public Map<ScreeningOperation, Integer> getRemaining(int t, Flight f, RiskCategory c){
+		Map<ScreeningOperation, Integer> remaining = new HashMap<ScreeningOperation, Integer>();
+		
+		Bucket bucket = buckets.get(t).get(f).get(c);
+		
+		for(int i = 0; i < model.getScreeningOperations().size(); i++){
+			remaining.put(model.getScreeningOperations().get(i), bucket.remaining.get(i));
+		}
+		
+		return remaining;
+	}
+	
+	public int getDispensed(){
+		int dispensed = 0;
+		
+		for(Bucket bucket : bucketList){
+			dispensed += Math.min(bucket.cursor.get(), bucket.sequence.length);
+		}
+		
+		return dispensed;
+	}
+	
+	// Passengers that arrived after their bucket ran out
+	public int getExhausted(){
+		int exhausted = 0;
+		
+		for(Bucket bucket : bucketList){
+			exhausted += Math.max(bucket.cursor.get() - bucket.sequence.length, 0);
+		}
+		
+		return exhausted;
+	}
+}
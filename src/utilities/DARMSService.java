@@ -0,0 +1,449 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import models.DARMSModel;
+import models.Flight;
+import models.PureStrategy;
+import models.RiskCategory;
+import models.ScreeningOperation;
+import solvers.DARMSMarginalSolver;
+
+/*
+ * Long-running service that keeps built models and solved zero-sum marginal solvers resident, so consumers pay for CPLEX
+ * loading, CSV parsing and the first solve once. Bound to 127.0.0.1 only. Every model has its own lock since a CPLEX
+ * object must not be used by two requests at once; requests on different models run in parallel.
+ *
+ *   GET  /models                                   loaded models
+ *   POST /models?name=N&input=F                    build and solve the model described by input file F
+ *   POST /solve?model=N                            rebuild and solve from scratch
+ *   POST /resolve?model=N&category.C=p...          warm re-solve with an adversary distribution override
+ *   GET  /sample?model=N                           sample a pure strategy from the current marginal strategy
+ *   GET  /result?model=N                           payoffs and marginal screening strategy of the last solve
+ *   GET  /stats                                    request counts and latency percentiles per endpoint
+ */
+public class DARMSService {
+	private static final int LATENCY_WINDOW = 10000;
+	
+	private HttpServer server;
+	private ExecutorService executor;
+	
+	private Map<String, Entry> models = new ConcurrentHashMap<String, Entry>();
+	private Map<String, ArrayDeque<Double>> latencies = new ConcurrentHashMap<String, ArrayDeque<Double>>();
+	private Map<String, Integer> requestCounts = new ConcurrentHashMap<String, Integer>();
+	
+	private static class Entry {
+		private DARMSModel model;
+		private DARMSMarginalSolver solver;
+		private Map<RiskCategory, Double> adversaryDistribution;
+		private double solveTime;
+		// Set once a POST /models with the same name has replaced this entry and ended its solver
+		private boolean replaced;
+		
+		private Entry(DARMSModel model){
+			this.model = model;
+			this.adversaryDistribution = new HashMap<RiskCategory, Double>(model.getAdversaryDistribution());
+		}
+	}
+	
+	private static class ServiceException extends Exception {
+		private static final long serialVersionUID = 1L;
+		
+		private int status;
+		
+		private ServiceException(int status, String message){
+			super(message);
+			this.status = status;
+		}
+	}
+	
+	public DARMSService(int port, int numThreads) throws IOException{
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		executor = Executors.newFixedThreadPool(numThreads);
+		
+		server.setExecutor(executor);
+		
+		server.createContext("/models", new Handler("models"));
+		server.createContext("/solve", new Handler("solve"));
+		server.createContext("/resolve", new Handler("resolve"));
+		server.createContext("/sample", new Handler("sample"));
+		server.createContext("/result", new Handler("result"));
+		server.createContext("/stats", new Handler("stats"));
+	}
+	
+	public void start(){
+		server.start();
+	}
+	
+	public void stop(){
+		server.stop(0);
+		executor.shutdownNow();
+		
+		for(Entry entry : models.values()){
+			synchronized(entry){
+				entry.solver.end();
+			}
+		}
+	}
+	
+	public int getPort(){
+		return server.getAddress().getPort();
+	}
+	
+	public void loadModel(String name, String inputFile) throws Exception{
+		DARMSModel model;
+		
+		// The builder keeps static state
+		synchronized(DARMSModelBuilder.class){
+			model = DARMSModelBuilder.buildModel(inputFile, false);
+		}
+		
+		Entry entry = new Entry(model);
+		
+		solve(entry);
+		
+		Entry previous = models.put(name, entry);
+		
+		if(previous != null){
+			synchronized(previous){
+				previous.solver.end();
+				previous.replaced = true;
+			}
+		}
+	}
+	
+	// Callers hold the entry lock. The previous solver is ended only once the new one has solved, so a failed solve leaves
+	// the entry usable
+	private void solve(Entry entry) throws Exception{
+		long start = System.currentTimeMillis();
+		
+		DARMSMarginalSolver solver = new DARMSMarginalSolver(entry.model, true, false, entry.model.flightByFlight(), false);
+		
+		try{
+			solver.solve();
+		}
+		catch(Exception e){
+			solver.end();
+			throw e;
+		}
+		
+		if(entry.solver != null){
+			entry.solver.end();
+		}
+		
+		entry.solver = solver;
+		entry.adversaryDistribution = new HashMap<RiskCategory, Double>(entry.model.getAdversaryDistribution());
+		entry.solveTime = (System.currentTimeMillis() - start) / 1000.0;
+	}
+	
+	private class Handler implements HttpHandler {
+		private String endpoint;
+		
+		private Handler(String endpoint){
+			this.endpoint = endpoint;
+		}
+		
+		public void handle(HttpExchange exchange) throws IOException{
+			long start = System.nanoTime();
+			
+			int status = 200;
+			String body;
+			
+			try{
+				Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+				
+				body = dispatch(endpoint, exchange.getRequestMethod(), parameters);
+			}
+			catch(ServiceException e){
+				status = e.status;
+				body = "{\"error\": " + quote(e.getMessage()) + "}";
+			}
+			catch(Exception e){
+				status = 500;
+				body = "{\"error\": " + quote(String.valueOf(e.getMessage())) + "}";
+			}
+			
+			byte[] bytes = body.getBytes("UTF-8");
+			
+			exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+			exchange.sendResponseHeaders(status, bytes.length);
+			
+			OutputStream out = exchange.getResponseBody();
+			
+			try{
+				out.write(bytes);
+			}
+			finally{
+				out.close();
+			}
+			
+			recordLatency(endpoint, (System.nanoTime() - start) / 1e6);
+		}
+	}
+	
+	private String dispatch(String endpoint, String method, Map<String, String> parameters) throws Exception{
+		if(endpoint.equals("stats")){
+			return statsJson();
+		}
+		
+		if(endpoint.equals("models")){
+			if(method.equalsIgnoreCase("POST")){
+				loadModel(require(parameters, "name"), require(parameters, "input"));
+			}
+			
+			return modelsJson();
+		}
+		
+		Entry entry = models.get(require(parameters, "model"));
+		
+		if(entry == null){
+			throw new ServiceException(404, "Unknown model " + parameters.get("model"));
+		}
+		
+		synchronized(entry){
+			if(entry.replaced){
+				throw new ServiceException(409, "Model " + parameters.get("model") + " was replaced, retry the request");
+			}
+			
+			if(endpoint.equals("solve")){
+				solve(entry);
+				
+				return resultJson(entry);
+			}
+			else if(endpoint.equals("resolve")){
+				resolve(entry, parameters);
+				
+				return resultJson(entry);
+			}
+			else if(endpoint.equals("sample")){
+				DARMSPureStrategySampler sampler = new DARMSPureStrategySampler(entry.model, entry.solver);
+				
+				return pureStrategyJson(entry.model, sampler.samplePureStrategy());
+			}
+			else if(endpoint.equals("result")){
+				return resultJson(entry);
+			}
+		}
+		
+		throw new ServiceException(404, "Unknown endpoint " + endpoint);
+	}
+	
+	// Parameters category.<name>=<probability> override the adversary distribution; categories not named keep their value
+	private void resolve(Entry entry, Map<String, String> parameters) throws Exception{
+		Map<RiskCategory, Double> adversaryDistribution = new HashMap<RiskCategory, Double>(entry.adversaryDistribution);
+		
+		for(RiskCategory c : adversaryDistribution.keySet()){
+			String value = parameters.get("category." + c);
+			
+			if(value != null){
+				try{
+					adversaryDistribution.put(c, Double.parseDouble(value));
+				}
+				catch(NumberFormatException e){
+					throw new ServiceException(400, "Invalid probability for risk category " + c + ": " + value);
+				}
+			}
+		}
+		
+		long start = System.currentTimeMillis();
+		
+		entry.solver.setAdversaryDistribution(adversaryDistribution);
+		entry.solver.resolve();
+		
+		entry.adversaryDistribution = adversaryDistribution;
+		entry.solveTime = (System.currentTimeMillis() - start) / 1000.0;
+	}
+	
+	private String modelsJson(){
+		List<String> names = new ArrayList<String>(models.keySet());
+		Collections.sort(names);
+		
+		String json = "[";
+		
+		for(int i = 0; i < names.size(); i++){
+			DARMSModel model = models.get(names.get(i)).model;
+			
+			json += (i > 0 ? ", " : "") + "{\"name\": " + quote(names.get(i)) + ", \"flights\": " + model.getFlights().size() + ", \"timeWindows\": " + model.getTimeWindows().size() + ", \"riskCategories\": " + model.getAdversaryDistribution().size() + "}";
+		}
+		
+		return json + "]";
+	}
+	
+	private String resultJson(Entry entry) throws Exception{
+		DARMSModel model = entry.model;
+		
+		List<RiskCategory> riskCategories = new ArrayList<RiskCategory>(model.getAdversaryDistribution().keySet());
+		Collections.sort(riskCategories);
+		
+		Map<RiskCategory, Double> defenderPayoffs = entry.solver.getDefenderPayoffs();
+		Map<Integer, Map<Flight, Map<RiskCategory, Map<ScreeningOperation, Double>>>> strategy = entry.solver.getDefenderScreeningStrategy();
+		
+		StringBuilder json = new StringBuilder();
+		
+		json.append("{\"defenderPayoff\": " + entry.solver.getDefenderPayoff() + ", \"solveTime\": " + entry.solveTime + ", \"riskCategories\": {");
+		
+		for(int i = 0; i < riskCategories.size(); i++){
+			RiskCategory c = riskCategories.get(i);
+			
+			json.append((i > 0 ? ", " : "") + quote(c.toString()) + ": {\"probability\": " + entry.adversaryDistribution.get(c) + ", \"defenderPayoff\": " + defenderPayoffs.get(c) + "}");
+		}
+		
+		json.append("}, \"screeningStrategy\": [");
+		
+		boolean first = true;
+		
+		for(int t : model.getTimeWindows()){
+			for(Flight f : model.getFlights(t)){
+				for(RiskCategory c : riskCategories){
+					json.append((first ? "" : ", ") + "{\"timeWindow\": " + t + ", \"flight\": " + quote(f.toString()) + ", \"riskCategory\": " + quote(c.toString()) + ", \"operations\": {");
+					
+					for(int i = 0; i < model.getScreeningOperations().size(); i++){
+						ScreeningOperation o = model.getScreeningOperations().get(i);
+						
+						json.append((i > 0 ? ", " : "") + quote(o.toString()) + ": " + strategy.get(t).get(f).get(c).get(o));
+					}
+					
+					json.append("}}");
+					
+					first = false;
+				}
+			}
+		}
+		
+		return json.append("]}").toString();
+	}
+	
+	private String pureStrategyJson(DARMSModel model, PureStrategy p){
+		List<RiskCategory> riskCategories = new ArrayList<RiskCategory>(model.getAdversaryDistribution().keySet());
+		Collections.sort(riskCategories);
+		
+		StringBuilder json = new StringBuilder("{\"id\": " + p.id() + ", \"assignments\": [");
+		
+		boolean first = true;
+		
+		for(int t : model.getTimeWindows()){
+			for(Flight f : model.getFlights(t)){
+				for(RiskCategory c : riskCategories){
+					json.append((first ? "" : ", ") + "{\"timeWindow\": " + t + ", \"flight\": " + quote(f.toString()) + ", \"riskCategory\": " + quote(c.toString()) + ", \"passengers\": {");
+					
+					for(int i = 0; i < model.getScreeningOperations().size(); i++){
+						ScreeningOperation o = model.getScreeningOperations().get(i);
+						
+						json.append((i > 0 ? ", " : "") + quote(o.toString()) + ": " + p.get(t, f, c, o));
+					}
+					
+					json.append("}}");
+					
+					first = false;
+				}
+			}
+		}
+		
+		return json.append("]}").toString();
+	}
+	
+	private void recordLatency(String endpoint, double milliseconds){
+		synchronized(latencies){
+			if(!latencies.containsKey(endpoint)){
+				latencies.put(endpoint, new ArrayDeque<Double>());
+				requestCounts.put(endpoint, 0);
+			}
+			
+			ArrayDeque<Double> window = latencies.get(endpoint);
+			
+			window.addLast(milliseconds);
+			
+			if(window.size() > LATENCY_WINDOW){
+				window.removeFirst();
+			}
+			
+			requestCounts.put(endpoint, requestCounts.get(endpoint) + 1);
+		}
+	}
+	
+	// Percentiles over the last LATENCY_WINDOW requests of every endpoint, in milliseconds
+	private String statsJson(){
+		StringBuilder json = new StringBuilder("{");
+		
+		synchronized(latencies){
+			List<String> endpoints = new ArrayList<String>(latencies.keySet());
+			Collections.sort(endpoints);
+			
+			for(int i = 0; i < endpoints.size(); i++){
+				List<Double> sorted = new ArrayList<Double>(latencies.get(endpoints.get(i)));
+				Collections.sort(sorted);
+				
+				json.append((i > 0 ? ", " : "") + quote(endpoints.get(i)) + ": {\"requests\": " + requestCounts.get(endpoints.get(i)));
+				json.append(", \"p50\": " + percentile(sorted, 0.5) + ", \"p90\": " + percentile(sorted, 0.9) + ", \"p99\": " + percentile(sorted, 0.99) + ", \"max\": " + sorted.get(sorted.size() - 1) + "}");
+			}
+		}
+		
+		return json.append("}").toString();
+	}
+	
+	private static double percentile(List<Double> sorted, double fraction){
+		int index = (int)Math.ceil(fraction * sorted.size()) - 1;
+		
+		return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+	}
+	
+	private static Map<String, String> parseQuery(String query) throws Exception{
+		Map<String, String> parameters = new HashMap<String, String>();
+		
+		if(query == null || query.isEmpty()){
+			return parameters;
+		}
+		
+		for(String pair : query.split("&")){
+			int index = pair.indexOf('=');
+			
+			if(index > 0){
+				parameters.put(URLDecoder.decode(pair.substring(0, index), "UTF-8"), URLDecoder.decode(pair.substring(index + 1), "UTF-8"));
+			}
+		}
+		
+		return parameters;
+	}
+	
+	private static String require(Map<String, String> parameters, String name) throws ServiceException{
+		if(!parameters.containsKey(name)){
+			throw new ServiceException(400, "Missing parameter " + name);
+		}
+		
+		return parameters.get(name);
+	}
+	
+	private static String quote(String s){
+		StringBuilder quoted = new StringBuilder("\"");
+		
+		for(char ch : s.toCharArray()){
+			if(ch == '"' || ch == '\\'){
+				quoted.append('\\').append(ch);
+			}
+			else if(ch < 0x20){
+				quoted.append(String.format("\\u%04x", (int)ch));
+			}
+			else{
+				quoted.append(ch);
+			}
+		}
+		
+		return quoted.append('"').toString();
+	}
+}